@@ -0,0 +1,37 @@
+package com.saraf.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory stand-ins for Spring Data repositories, so benchmarks measure the service
+ * code rather than a database round trip. Methods named in {@code answers} return the
+ * given value, {@code save} echoes its argument and everything else returns an empty value.
+ */
+public final class RepositoryStubs {
+
+    private RepositoryStubs() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T stub(Class<T> repository, Map<String, Object> answers) {
+        return (T) Proxy.newProxyInstance(repository.getClassLoader(), new Class<?>[]{repository}, (proxy, method, args) -> {
+            String name = method.getName();
+            if (answers.containsKey(name)) {
+                return answers.get(name);
+            }
+            if (name.equals("save")) {
+                return args[0];
+            }
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (name) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> repository.getSimpleName() + "Stub";
+                };
+            }
+            return method.getReturnType() == Optional.class ? Optional.empty() : null;
+        });
+    }
+}
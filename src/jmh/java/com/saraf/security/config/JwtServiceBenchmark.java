@@ -0,0 +1,71 @@
+package com.saraf.security.config;
+
+import com.saraf.benchmark.RepositoryStubs;
+import com.saraf.security.token.TokenRepository;
+import com.saraf.security.token.TokenStateService;
+import com.saraf.security.user.Role;
+import com.saraf.security.user.User;
+import com.saraf.security.user.UserRepository;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private JwtService cachingService;
+    private JwtService uncachedService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachingService = newService(10_000);
+        // A zero-sized cache evicts every entry, so each call pays for a full parse and signature check.
+        uncachedService = newService(0);
+        user = User.builder()
+                .id(1)
+                .email("john.doe@example.com")
+                .role(Role.USER)
+                .build();
+        token = cachingService.generateToken(user);
+        cachingService.resolveClaims(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cachingService.generateToken(user);
+    }
+
+    @Benchmark
+    public Claims resolveClaimsCached() {
+        return cachingService.resolveClaims(token);
+    }
+
+    @Benchmark
+    public Claims resolveClaimsUncached() {
+        return uncachedService.resolveClaims(token);
+    }
+
+    private JwtService newService(int cacheSize) {
+        JwtService service = new JwtService(
+                new TokenStateService(RepositoryStubs.stub(TokenRepository.class, Map.of())),
+                RepositoryStubs.stub(UserRepository.class, Map.of()));
+        ReflectionTestUtils.setField(service, "secretKey", SECRET);
+        ReflectionTestUtils.setField(service, "jwtExpiration", 3_600_000L);
+        ReflectionTestUtils.setField(service, "refreshExpiration", 86_400_000L);
+        ReflectionTestUtils.setField(service, "verifiedCacheSize", cacheSize);
+        service.init();
+        return service;
+    }
+}
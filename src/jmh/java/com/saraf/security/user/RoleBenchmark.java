@@ -0,0 +1,40 @@
+package com.saraf.security.user;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoleBenchmark {
+
+    @Param({"USER", "ADMIN"})
+    private Role role;
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = User.builder()
+                .id(1)
+                .email("john.doe@example.com")
+                .role(role)
+                .build();
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> roleAuthorities() {
+        return role.getAuthorities();
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> userAuthorities() {
+        return user.getAuthorities();
+    }
+}
@@ -0,0 +1,48 @@
+package com.saraf.service.telegram;
+
+import com.saraf.service.transfer.PaymentMethod;
+import com.saraf.service.transfer.Status;
+import com.saraf.service.transfer.TransferAdminDTO;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TelegramBotBenchmark {
+
+    private TelegramBot telegramBot;
+    private TransferAdminDTO transfer;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        // Hands formatted messages to the blackhole instead of the queue, so only formatting is measured.
+        TelegramDispatcher dispatcher = new TelegramDispatcher(null, null) {
+            @Override
+            public boolean enqueue(String message) {
+                blackhole.consume(message);
+                return true;
+            }
+        };
+        telegramBot = new TelegramBot(dispatcher);
+        transfer = new TransferAdminDTO(1001, BigDecimal.valueOf(120), BigDecimal.valueOf(27540), Status.PENDING,
+                LocalDateTime.now(), "Jane Doe", "00999999999", null, PaymentMethod.ZELLE, "2222", "John", "Doe");
+    }
+
+    @Benchmark
+    public void formatTransferMessage() {
+        telegramBot.sendTransferToChannel(transfer);
+    }
+
+    @Benchmark
+    public void formatRateMessage() {
+        telegramBot.sendNewRateToChannel(230, 229);
+    }
+}
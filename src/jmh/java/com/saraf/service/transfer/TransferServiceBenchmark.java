@@ -0,0 +1,93 @@
+package com.saraf.service.transfer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.saraf.benchmark.RepositoryStubs;
+import com.saraf.security.user.Role;
+import com.saraf.security.user.User;
+import com.saraf.security.user.UserRepository;
+import com.saraf.service.outbox.OutboxRepository;
+import com.saraf.service.outbox.OutboxService;
+import com.saraf.service.rate.ExchangeRate;
+import com.saraf.service.rate.ExchangeRateRepository;
+import com.saraf.service.rate.ExchangeRateService;
+import com.saraf.service.recipient.Recipient;
+import com.saraf.service.recipient.RecipientRepository;
+import com.saraf.service.recipient.RecipientService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferServiceBenchmark {
+
+    private TransferService transferService;
+    private TransferRequest request;
+    private Transfer transfer;
+
+    @Setup
+    public void setUp() {
+        User user = User.builder()
+                .id(1)
+                .firstname("John")
+                .lastname("Doe")
+                .email("john.doe@example.com")
+                .role(Role.USER)
+                .build();
+        Recipient recipient = Recipient.builder()
+                .firstname("Jane")
+                .lastname("Doe")
+                .ccp("12345678989")
+                .user(user)
+                .build();
+        ExchangeRate rate = new ExchangeRate();
+        rate.setId(1);
+        rate.setCurrentRate(229.5);
+
+        UserRepository userRepository = RepositoryStubs.stub(UserRepository.class, Map.of("findById", Optional.of(user), "getReferenceById", user));
+        RecipientRepository recipientRepository = RepositoryStubs.stub(RecipientRepository.class,
+                Map.of("findByUserIdAndAndCcp", recipient));
+        ExchangeRateService exchangeRateService = new ExchangeRateService(
+                RepositoryStubs.stub(ExchangeRateRepository.class, Map.of("findTopByOrderByIdDesc", rate)),
+                null,
+                event -> { });
+        OutboxService outboxService = new OutboxService(
+                RepositoryStubs.stub(OutboxRepository.class, Map.of()),
+                new ObjectMapper().findAndRegisterModules());
+
+        transferService = new TransferService(
+                RepositoryStubs.stub(TransferRepository.class, Map.of()),
+                userRepository,
+                recipientRepository,
+                exchangeRateService,
+                () -> Optional.of(1),
+                new RecipientService(recipientRepository, userRepository, () -> Optional.of(1)),
+                outboxService,
+                event -> { });
+
+        request = TransferRequest.builder()
+                .amount(BigDecimal.valueOf(120))
+                .ccp("12345678989")
+                .paymentMethod(PaymentMethod.ZELLE)
+                .code("2222")
+                .build();
+        transfer = transferService.addTransfer(request);
+    }
+
+    @Benchmark
+    public Transfer addTransfer() {
+        return transferService.addTransfer(request);
+    }
+
+    @Benchmark
+    public TransferAdminDTO toAdminDTO() {
+        return transferService.toAdminDTO(transfer);
+    }
+}
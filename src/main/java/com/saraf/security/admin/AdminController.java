@@ -1,28 +1,30 @@
 package com.saraf.security.admin;
 
 import com.saraf.security.admin.s3.S3Service;
-import com.saraf.security.email.EmailService;
-import com.saraf.security.email.EmailTemplateName;
 import com.saraf.security.exception.TransferNotFoundException;
 import com.saraf.security.exception.UserNotFoundException;
 import com.saraf.security.user.RoleService;
 import com.saraf.security.user.RoleUpdateRequest;
 
-import com.saraf.security.user.User;
-import com.saraf.security.user.UserRepository;
 import com.saraf.service.transfer.*;
 import io.swagger.v3.oas.annotations.Hidden;
-import jakarta.mail.MessagingException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/v1/admin")
@@ -33,7 +35,8 @@ public class AdminController {
     private final RoleService roleService;
     private final TransferService transferService;
     private final S3Service s3Service;
-    private final EmailService emailService;
+    private final TransferExportService transferExportService;
+    private final TransferFeedService transferFeedService;
 
     @GetMapping("/transfers")
     public Page<TransferAdminDTO> getTransfers(@RequestParam(defaultValue = "0") int page,
@@ -47,11 +50,41 @@ public class AdminController {
         return transferService.getPendingTransfersForAdmin(page, size);
     }
 
+    @GetMapping("/transfers/scroll")
+    public CursorPage<TransferAdminDTO> scrollTransfers(@RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "20") int size) {
+        return transferService.scrollTransfersForAdmin(cursor, size);
+    }
+
+    @GetMapping("/transfers/pending/scroll")
+    public CursorPage<TransferAdminDTO> scrollPendingTransfers(@RequestParam(required = false) String cursor,
+                                                               @RequestParam(defaultValue = "20") int size) {
+        return transferService.scrollPendingTransfersForAdmin(cursor, size);
+    }
+
+    @GetMapping("/transfers/export")
+    public ResponseEntity<StreamingResponseBody> exportTransfers(
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Set<Status> status) {
+        StreamingResponseBody body = out -> transferExportService.export(format, from, to, status, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transfers." + format.getExtension() + "\"")
+                .body(body);
+    }
+
+    @GetMapping(path = "/transfers/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter transferFeed(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return transferFeedService.subscribe(lastEventId);
+    }
+
     @PostMapping("/upload-receipt/{id}")
     public ResponseEntity<ApiResponse> uploadReceipt(@PathVariable Integer id, @RequestParam("receipt") MultipartFile receipt) {
         try {
-            Transfer transfer = s3Service.saveReceipt(id, receipt);
-            return ResponseEntity.ok().body(new ApiResponse(true, "Receipt uploaded successfully", transfer.getReceipt()));
+            String receiptKey = s3Service.saveReceipt(id, receipt);
+            return ResponseEntity.ok().body(new ApiResponse(true, "Receipt uploaded successfully", receiptKey));
         } catch (TransferNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse(false, "Transfer not found"));
         } catch (IOException e) {
@@ -60,13 +93,16 @@ public class AdminController {
     }
 
     @PatchMapping("/update-status")
-    public ResponseEntity<Transfer> updateStatus(@RequestBody UpdateTransferStatusDTO request) throws MessagingException, UnsupportedEncodingException {
+    public ResponseEntity<Transfer> updateStatus(@RequestBody UpdateTransferStatusDTO request) {
         Transfer updatedTransfer = transferService.updateStatus(request.getId(), request.getStatus());
-        User user = updatedTransfer.getUser();
-        emailService.sendStatusUpdateEmail(user.getFirstname(), user.getEmail(), request.getStatus());
         return ResponseEntity.ok(updatedTransfer);
     }
 
+    @PatchMapping("/update-status/bulk")
+    public List<StatusUpdateResult> updateStatuses(@RequestBody List<UpdateTransferStatusDTO> request) {
+        return transferService.updateStatuses(request);
+    }
+
     @PutMapping("/user/{userId}/role")
     @PreAuthorize("hasAuthority('admin:update')")
     @Hidden
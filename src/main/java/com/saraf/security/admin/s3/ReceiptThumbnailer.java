@@ -0,0 +1,274 @@
+package com.saraf.security.admin.s3;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.w3c.dom.NodeList;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Produces the {@link ReceiptVariant#PREVIEW} and {@link ReceiptVariant#THUMBNAIL} JPEGs of
+ * an uploaded receipt with plain ImageIO. Work runs on a small pool behind a bounded queue;
+ * when the queue is full the uploading thread generates the variants itself, which slows
+ * uploads down instead of piling up decoded images in memory.
+ * <p>
+ * The original is read back from S3, so nothing from the upload request has to outlive it,
+ * and is decoded subsampled close to the preview size rather than at full resolution.
+ * Formats ImageIO cannot read, such as PDF, get no variants and are served as uploaded.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReceiptThumbnailer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReceiptThumbnailer.class);
+    private static final String JPEG_METADATA_FORMAT = "javax_imageio_jpeg_image_1.0";
+    private static final int APP1_MARKER = 0xE1;
+    private static final int ORIENTATION_TAG = 0x0112;
+
+    private final AmazonS3 amazonS3;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.s3.bucket:saraf-brk}")
+    private String bucketName;
+    @Value("${application.s3.variants.workers:2}")
+    private int workers;
+    @Value("${application.s3.variants.queue-capacity:20}")
+    private int queueCapacity;
+    @Value("${application.s3.variants.preview-size:1280}")
+    private int previewSize;
+    @Value("${application.s3.variants.thumbnail-size:320}")
+    private int thumbnailSize;
+    @Value("${application.s3.variants.quality:0.75}")
+    private float quality;
+
+    private final Set<String> readableSuffixes = Arrays.stream(ImageIO.getReaderFileSuffixes())
+            .map(suffix -> suffix.toLowerCase(Locale.ROOT))
+            .collect(Collectors.toUnmodifiableSet());
+    private ThreadPoolExecutor executor;
+    private Counter generated;
+    private Counter failed;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "receipt-thumbnailer-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        meterRegistry.gauge("receipts.variants.queue.size", executor, e -> e.getQueue().size());
+        generated = meterRegistry.counter("receipts.variants.generated");
+        failed = meterRegistry.counter("receipts.variants.failed");
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public boolean producesVariants(String key) {
+        int dot = key.lastIndexOf('.');
+        return dot >= 0 && readableSuffixes.contains(key.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    public void submit(String key) {
+        if (producesVariants(key)) {
+            executor.execute(() -> generate(key));
+        }
+    }
+
+    void generate(String key) {
+        try (S3Object object = amazonS3.getObject(bucketName, key);
+             ImageInputStream input = ImageIO.createImageInputStream(object.getObjectContent())) {
+            BufferedImage preview = decode(input, previewSize);
+            if (preview == null) {
+                failed.increment();
+                logger.warn("Receipt {} is not a readable image, serving the original only", key);
+                return;
+            }
+            store(ReceiptVariant.PREVIEW.keyFor(key), preview);
+            store(ReceiptVariant.THUMBNAIL.keyFor(key), scale(preview, thumbnailSize));
+            generated.increment();
+        } catch (IOException | AmazonClientException e) {
+            failed.increment();
+            logger.warn("Failed to generate variants of receipt {}: {}", key, e.getMessage());
+        }
+    }
+
+    private static BufferedImage decode(ImageInputStream input, int maxSize) throws IOException {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            return null;
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(input, true, false);
+            // Skip source pixels while decoding so a 12 MP photo is never held at full size
+            int subsampling = Math.max(1, Math.max(reader.getWidth(0), reader.getHeight(0)) / maxSize);
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+            int orientation = orientation(reader.getImageMetadata(0));
+            return orient(scale(reader.read(0, param), maxSize), orientation);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    // Draws onto an opaque RGB canvas, which the JPEG writer needs anyway, shrinking to fit maxSize.
+    private static BufferedImage scale(BufferedImage image, int maxSize) {
+        double factor = Math.min(1.0, (double) maxSize / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * factor));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    // Phones store photos sideways and record the rotation in EXIF, which ImageIO does not apply.
+    private static BufferedImage orient(BufferedImage image, int orientation) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        AffineTransform transform = new AffineTransform();
+        BufferedImage rotated;
+        switch (orientation) {
+            case 3 -> {
+                transform.translate(width, height);
+                transform.rotate(Math.PI);
+                rotated = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            }
+            case 6 -> {
+                transform.translate(height, 0);
+                transform.rotate(Math.PI / 2);
+                rotated = new BufferedImage(height, width, BufferedImage.TYPE_INT_RGB);
+            }
+            case 8 -> {
+                transform.translate(0, width);
+                transform.rotate(-Math.PI / 2);
+                rotated = new BufferedImage(height, width, BufferedImage.TYPE_INT_RGB);
+            }
+            default -> {
+                return image;
+            }
+        }
+        Graphics2D graphics = rotated.createGraphics();
+        try {
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return rotated;
+    }
+
+    private static int orientation(IIOMetadata metadata) {
+        if (metadata == null || !Arrays.asList(metadata.getMetadataFormatNames()).contains(JPEG_METADATA_FORMAT)) {
+            return 1;
+        }
+        IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(JPEG_METADATA_FORMAT);
+        NodeList markers = root.getElementsByTagName("unknown");
+        for (int i = 0; i < markers.getLength(); i++) {
+            IIOMetadataNode marker = (IIOMetadataNode) markers.item(i);
+            if (String.valueOf(APP1_MARKER).equals(marker.getAttribute("MarkerTag"))
+                    && marker.getUserObject() instanceof byte[] data) {
+                int orientation = exifOrientation(data);
+                if (orientation > 0) {
+                    return orientation;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Reads the orientation tag from the first IFD of an EXIF APP1 segment.
+     *
+     * @return the orientation, or 0 when the segment has none
+     */
+    static int exifOrientation(byte[] app1) {
+        if (app1.length < 14 || app1[0] != 'E' || app1[1] != 'x' || app1[2] != 'i' || app1[3] != 'f') {
+            return 0;
+        }
+        try {
+            ByteBuffer tiff = ByteBuffer.wrap(app1, 6, app1.length - 6).slice();
+            tiff.order(tiff.get(0) == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+            int ifd = tiff.getInt(4);
+            int entries = tiff.getShort(ifd) & 0xFFFF;
+            for (int i = 0; i < entries; i++) {
+                int entry = ifd + 2 + i * 12;
+                if ((tiff.getShort(entry) & 0xFFFF) == ORIENTATION_TAG) {
+                    return tiff.getShort(entry + 8) & 0xFFFF;
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            // Truncated segment
+        }
+        return 0;
+    }
+
+    private void store(String key, BufferedImage image) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(bytes)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(bytes.size());
+        metadata.setContentType("image/jpeg");
+        amazonS3.putObject(bucketName, key, new ByteArrayInputStream(bytes.toByteArray()), metadata);
+    }
+}
@@ -0,0 +1,28 @@
+package com.saraf.security.admin.s3;
+
+/**
+ * Sizes a receipt can be downloaded in. Derived variants are JPEGs stored next to the
+ * original, e.g. {@code receipt/7/thumbnail/receipt_x.jpg} for {@code receipt/7/receipt_x.png}.
+ */
+public enum ReceiptVariant {
+    ORIGINAL(null),
+    PREVIEW("preview"),
+    THUMBNAIL("thumbnail");
+
+    private final String directory;
+
+    ReceiptVariant(String directory) {
+        this.directory = directory;
+    }
+
+    public String keyFor(String originalKey) {
+        if (directory == null) {
+            return originalKey;
+        }
+        int slash = originalKey.lastIndexOf('/');
+        String name = originalKey.substring(slash + 1);
+        int dot = name.lastIndexOf('.');
+        String baseName = dot >= 0 ? name.substring(0, dot) : name;
+        return originalKey.substring(0, slash + 1) + directory + "/" + baseName + ".jpg";
+    }
+}
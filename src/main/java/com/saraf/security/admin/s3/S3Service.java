@@ -1,47 +1,185 @@
 package com.saraf.security.admin.s3;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.transfer.TransferManager;
 import com.saraf.security.exception.TransferNotFoundException;
-import com.saraf.service.transfer.Transfer;
+import com.saraf.service.transfer.TransferEventType;
+import com.saraf.service.transfer.TransferLifecycleEvent;
 import com.saraf.service.transfer.TransferRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Service
 @RequiredArgsConstructor
 public class S3Service {
 
+    private static final Logger logger = LoggerFactory.getLogger(S3Service.class);
+    // A cached URL is never handed out with less validity left than this
+    private static final long MIN_REMAINING_VALIDITY = 60_000;
+
     private final AmazonS3 amazonS3;
+    private final TransferManager receiptTransferManager;
     private final TransferRepository transferRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReceiptThumbnailer receiptThumbnailer;
+
+    @Value("${application.s3.bucket:saraf-brk}")
+    private String bucketName;
+    @Value("${application.s3.presigned-url.expiry:10}")
+    private int urlExpiryMinutes;
+    @Value("${application.s3.presigned-url.refresh-ahead:120000}")
+    private long urlRefreshAhead;
+    @Value("${application.s3.presigned-url.cache-size:10000}")
+    private int urlCacheSize;
+
+    // Signed receipt URLs keyed by receipt key; keys are never reused, so entries only ever expire.
+    private Map<String, SignedUrl> receiptUrls;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private ExecutorService refresher;
+
+    private record SignedUrl(String url, long retireAt) {
+    }
+
+    @PostConstruct
+    void init() {
+        receiptUrls = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SignedUrl> eldest) {
+                return size() > urlCacheSize;
+            }
+        });
+        refresher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "receipt-url-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 
-    private final String BUCKET_NAME = "saraf-brk";
+    @PreDestroy
+    void shutdown() {
+        refresher.shutdownNow();
+    }
 
-    public Transfer saveReceipt(Integer id, MultipartFile receipt) throws IOException {
-        Transfer transfer = transferRepository.findById(id)
+    /**
+     * Streams a receipt to S3 and records its key on the transfer. The owner lookup and the
+     * final UPDATE each use a connection only for their own statement, so none is held
+     * while the file is uploaded. The upload is sent with its content length, so the SDK
+     * streams it from the multipart temp file instead of buffering it in memory.
+     *
+     * @return the S3 key of the stored receipt
+     */
+    public String saveReceipt(Integer id, MultipartFile receipt) throws IOException {
+        Integer userId = transferRepository.findUserIdByTransferId(id)
                 .orElseThrow(() -> new TransferNotFoundException("Transfer not found"));
-        Integer userId = transfer.getUser().getId();
 
         String originalFilename = receipt.getOriginalFilename();
         String extension = originalFilename.substring(originalFilename.lastIndexOf(".") + 1);
 
         String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
         String uniqueId = UUID.randomUUID().toString();
-        String fileName = String.format("receipt/%d/receipt_%s_%s.%s", transfer.getUser().getId(), timestamp, uniqueId, extension);
+        String fileName = String.format("receipt/%d/receipt_%s_%s.%s", userId, timestamp, uniqueId, extension);
+
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(receipt.getSize());
+        metadata.setContentType(receipt.getContentType());
+        try (InputStream inputStream = receipt.getInputStream()) {
+            receiptTransferManager.upload(new PutObjectRequest(bucketName, fileName, inputStream, metadata))
+                    .waitForUploadResult();
+        } catch (AmazonClientException e) {
+            throw new IOException("Receipt upload failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Receipt upload interrupted");
+        }
+
+        if (transferRepository.updateReceipt(id, fileName) == 0) {
+            // The transfer disappeared while the file was uploading
+            amazonS3.deleteObject(bucketName, fileName);
+            throw new TransferNotFoundException("Transfer not found");
+        }
+        eventPublisher.publishEvent(new TransferLifecycleEvent(TransferEventType.RECEIPT_UPLOADED,
+                transferRepository.findTransferById(id)));
+        receiptThumbnailer.submit(fileName);
+        return fileName;
+    }
 
-        InputStream inputStream = receipt.getInputStream();
-        amazonS3.putObject(new PutObjectRequest(BUCKET_NAME, fileName, inputStream, null));
+    /**
+     * Returns a pre-signed GET URL for the receipt, signing it only when no cached URL is
+     * left. A cached URL is retired a minute before it expires, so a returned link always
+     * stays usable for at least that long, and is re-signed in the background once it is
+     * within {@code refresh-ahead} of retiring, so hot receipts are never signed on the
+     * request thread.
+     */
+    public String getReceiptUrl(String key) {
+        long now = System.currentTimeMillis();
+        SignedUrl cached = receiptUrls.get(key);
+        if (cached == null || now >= cached.retireAt()) {
+            return sign(key).url();
+        }
+        if (now >= cached.retireAt() - urlRefreshAhead && refreshing.add(key)) {
+            try {
+                refresher.execute(() -> {
+                    try {
+                        sign(key);
+                    } catch (RuntimeException e) {
+                        logger.warn("Failed to refresh pre-signed URL for {}: {}", key, e.getMessage());
+                    } finally {
+                        refreshing.remove(key);
+                    }
+                });
+            } catch (RuntimeException e) {
+                refreshing.remove(key);
+            }
+        }
+        return cached.url();
+    }
+
+    /**
+     * Returns a pre-signed URL for the given size of the receipt. Variants are generated
+     * after the upload and never for PDFs, so until one exists the original is served.
+     */
+    public String getReceiptUrl(String key, ReceiptVariant variant) {
+        String variantKey = variant.keyFor(key);
+        if (variant == ReceiptVariant.ORIGINAL || !receiptThumbnailer.producesVariants(key)) {
+            return getReceiptUrl(key);
+        }
+        if (!receiptUrls.containsKey(variantKey) && !amazonS3.doesObjectExist(bucketName, variantKey)) {
+            return getReceiptUrl(key);
+        }
+        return getReceiptUrl(variantKey);
+    }
 
-        transfer.setReceipt(fileName);
-        return transferRepository.save(transfer);
+    private SignedUrl sign(String key) {
+        long signedAt = System.currentTimeMillis();
+        String url = generatePreSignedUrl(key, urlExpiryMinutes);
+        SignedUrl signed = new SignedUrl(url, signedAt + urlExpiryMinutes * 60_000L - MIN_REMAINING_VALIDITY);
+        receiptUrls.put(key, signed);
+        return signed;
     }
 
     public String generatePreSignedUrl(String fileName, int expirationInMinutes) {
@@ -52,7 +190,7 @@ public class S3Service {
         expiration.setTime(expTimeMillis);
 
         GeneratePresignedUrlRequest generatePresignedUrlRequest =
-                new GeneratePresignedUrlRequest(BUCKET_NAME, fileName)
+                new GeneratePresignedUrlRequest(bucketName, fileName)
                         .withMethod(com.amazonaws.HttpMethod.GET)
                         .withExpiration(expiration);
 
@@ -1,5 +1,6 @@
 package com.saraf.security.auditing;
 
+import com.saraf.security.user.AuthenticatedUser;
 import com.saraf.security.user.User;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
@@ -22,6 +23,9 @@ public class ApplicationAuditAware implements AuditorAware<Integer> {
             return Optional.empty();
         }
 
+        if (authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return Optional.ofNullable(principal.getId());
+        }
         User userPrincipal = (User) authentication.getPrincipal();
         return Optional.ofNullable(userPrincipal.getId());
     }
@@ -6,6 +6,7 @@ import com.saraf.security.email.EmailTemplateName;
 import com.saraf.security.exception.EmailValidationException;
 import com.saraf.security.token.Token;
 import com.saraf.security.token.TokenRepository;
+import com.saraf.security.token.TokenStateService;
 import com.saraf.security.token.TokenType;
 import com.saraf.security.user.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -37,11 +38,13 @@ public class AuthenticationService {
 
   private final UserRepository repository;
   private final TokenRepository tokenRepository;
+  private final TokenStateService tokenStateService;
   private final VerTokenRepository verTokenRepository;
   private final PasswordEncoder passwordEncoder;
   private final JwtService jwtService;
   private final AuthenticationManager authenticationManager;
   private final EmailService emailService;
+  private final PrincipalCache principalCache;
 
   @Value("${application.mailing.frontend.activation-url}")
   private String activationUrl;
@@ -126,6 +129,7 @@ public class AuthenticationService {
     user.setEnabled(true);
 
     repository.save(user);
+    principalCache.evict(user.getEmail());
     savedToken.setValidatedAt(LocalDateTime.now());
     verTokenRepository.save(savedToken);
     return true;
@@ -134,10 +138,11 @@ public class AuthenticationService {
   void saveUserToken(User user, String jwtToken) {
     var token = Token.builder()
             .user(user)
-            .token(jwtToken)
+            .token(tokenStateService.storedValue(jwtToken))
             .tokenType(TokenType.BEARER)
             .expired(false)
             .revoked(false)
+            .createdAt(LocalDateTime.now())
             .build();
     tokenRepository.save(token);
   }
@@ -205,14 +210,7 @@ public class AuthenticationService {
   }
 
   void revokeAllUserTokens(User user) {
-    var validUserTokens = tokenRepository.findAllValidTokenByUser(user.getId());
-    if (validUserTokens.isEmpty())
-      return;
-    validUserTokens.forEach(token -> {
-      token.setExpired(true);
-      token.setRevoked(true);
-    });
-    tokenRepository.saveAll(validUserTokens);
+    tokenStateService.revokeAllForUser(user.getId());
   }
 
   @Transactional
@@ -0,0 +1,125 @@
+package com.saraf.security.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Measures how long each connection is held, from checkout until it is closed, and
+ * attributes the time to the repository method that checked it out. Hold times are
+ * recorded as the {@code db.connection.hold} timer tagged with {@code caller}; a hold longer
+ * than the warning threshold is logged with its caller, which points at code doing slow
+ * work while a connection is checked out.
+ * <p>
+ * Connections checked out outside any repository call, typically when a service method's
+ * transaction begins, are attributed to the nearest application frame on the stack, or to
+ * {@code other} when there is none.
+ */
+public class ConnectionHoldTracker extends DelegatingDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionHoldTracker.class);
+    private static final String OTHER = "other";
+    private static final String APPLICATION_PACKAGE = "com.saraf.";
+    private static final StackWalker stackWalker = StackWalker.getInstance();
+    private static final ThreadLocal<String> currentCaller = new ThreadLocal<>();
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final Duration warningThreshold;
+
+    public ConnectionHoldTracker(DataSource target, ObjectProvider<MeterRegistry> meterRegistry, Duration warningThreshold) {
+        super(target);
+        this.meterRegistry = meterRegistry;
+        this.warningThreshold = warningThreshold;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return track(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return track(super.getConnection(username, password));
+    }
+
+    private Connection track(Connection connection) {
+        String caller = currentCaller.get();
+        String holder = caller != null ? caller : applicationCaller();
+        long checkedOut = System.nanoTime();
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && closed.compareAndSet(false, true)) {
+                        released(holder, Duration.ofNanos(System.nanoTime() - checkedOut));
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    private static String applicationCaller() {
+        return stackWalker.walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(APPLICATION_PACKAGE)
+                        && !frame.getClassName().equals(ConnectionHoldTracker.class.getName()))
+                .findFirst()
+                .map(frame -> {
+                    String className = frame.getClassName();
+                    String simpleName = className.substring(className.lastIndexOf('.') + 1);
+                    int proxySuffix = simpleName.indexOf("$$");
+                    return (proxySuffix >= 0 ? simpleName.substring(0, proxySuffix) : simpleName) + "." + frame.getMethodName();
+                })
+                .orElse(OTHER));
+    }
+
+    private void released(String holder, Duration held) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Timer.builder("db.connection.hold").tag("caller", holder).register(registry).record(held);
+        }
+        if (held.compareTo(warningThreshold) > 0) {
+            logger.warn("Connection checked out by {} was held for {} ms", holder, held.toMillis());
+        }
+    }
+
+    /**
+     * Marks repository calls on the current thread so the connections they check out can be
+     * attributed to them. Only the outermost repository call is recorded.
+     */
+    static class RepositoryCallInterceptor implements MethodInterceptor {
+
+        private final String repositoryName;
+
+        RepositoryCallInterceptor(String repositoryName) {
+            this.repositoryName = repositoryName;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            if (currentCaller.get() != null) {
+                return invocation.proceed();
+            }
+            currentCaller.set(repositoryName + "." + invocation.getMethod().getName());
+            try {
+                return invocation.proceed();
+            } finally {
+                currentCaller.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.saraf.security.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.repository.Repository;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Wraps the application's {@code dataSource} in a {@link ConnectionHoldTracker} and tags
+ * every Spring Data repository so connection hold time is attributed to the calling
+ * repository method. Pool gauges and acquisition timers ({@code hikaricp.connections.*})
+ * come from Boot's Hikari metrics binding.
+ */
+@Configuration
+public class DataSourceObservabilityConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionHoldTracking(ObjectProvider<MeterRegistry> meterRegistry, Environment env) {
+        Duration warningThreshold = Duration.ofMillis(
+                env.getProperty("application.datasource.hold-warning-threshold", Long.class, 2000L));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof Repository<?, ?> && bean instanceof Advised advised) {
+                    Class<?>[] interfaces = AopProxyUtils.proxiedUserInterfaces(bean);
+                    advised.addAdvice(0, new ConnectionHoldTracker.RepositoryCallInterceptor(interfaces[0].getSimpleName()));
+                } else if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource) {
+                    return new ConnectionHoldTracker(dataSource, meterRegistry, warningThreshold);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -1,7 +1,9 @@
 package com.saraf.security.config;
 
 import com.saraf.security.exception.InvalidTokenException;
-import com.saraf.security.token.TokenRepository;
+import com.saraf.security.token.TokenStateService;
+import com.saraf.security.user.PrincipalCache;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -18,7 +20,6 @@ import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -29,8 +30,8 @@ public class  JwtAuthenticationFilter extends OncePerRequestFilter {
   private static final Logger logger = LoggerFactory.getLogger(JwtService.class);
 
   private final JwtService jwtService;
-  private final UserDetailsService userDetailsService;
-  private final TokenRepository tokenRepository;
+  private final PrincipalCache principalCache;
+  private final TokenStateService tokenStateService;
 
   @Override
   protected void doFilterInternal(
@@ -39,7 +40,7 @@ public class  JwtAuthenticationFilter extends OncePerRequestFilter {
           @NonNull FilterChain filterChain
   ) throws ServletException, IOException {
     try {
-      if (request.getServletPath().contains("/api/v1/auth")) {
+      if (SecurityConfiguration.PUBLIC_ROUTES.isPublic(request)) {
         filterChain.doFilter(request, response);
         return;
       }
@@ -52,15 +53,14 @@ public class  JwtAuthenticationFilter extends OncePerRequestFilter {
         return;
       }
       jwt = authHeader.substring(7);
-      userEmail = jwtService.extractUsername(jwt);
+      final Claims claims = jwtService.resolveClaims(jwt);
+      userEmail = claims.getSubject();
 
       if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-        UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-        var isTokenValid = tokenRepository.findByToken(jwt)
-                .map(t -> !t.isExpired() && !t.isRevoked())
-                .orElse(false);
+        UserDetails userDetails = principalCache.loadPrincipal(userEmail);
+        var isTokenValid = !jwtService.isRefreshToken(claims) && !tokenStateService.isRevoked(jwt);
 
-        if (jwtService.isTokenValid(jwt, userDetails) && isTokenValid) {
+        if (jwtService.isTokenValid(claims, userDetails) && isTokenValid) {
           UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                   userDetails,
                   null,
@@ -2,18 +2,21 @@ package com.saraf.security.config;
 
 import com.saraf.security.exception.ExpiredTokenException;
 import com.saraf.security.exception.InvalidTokenException;
-import com.saraf.security.token.TokenRepository;
+import com.saraf.security.token.TokenStateService;
 import com.saraf.security.user.Role;
 import com.saraf.security.user.UserRepository;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import java.security.Key;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.function.Function;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,6 +30,8 @@ import org.springframework.stereotype.Service;
 public class JwtService {
 
   private static final Logger logger = LoggerFactory.getLogger(JwtService.class);
+  private static final String TOKEN_TYPE_CLAIM = "token_type";
+  private static final String REFRESH_TOKEN_TYPE = "refresh";
 
   @Value("${application.security.jwt.secret-key}")
   private String secretKey;
@@ -34,10 +39,43 @@ public class JwtService {
   private long jwtExpiration;
   @Value("${application.security.jwt.refresh-token.expiration}")
   private long refreshExpiration;
+  @Value("${application.security.jwt.verified-cache-size:10000}")
+  private int verifiedCacheSize;
 
-  private final TokenRepository tokenRepository;
+  private final TokenStateService tokenStateService;
   private final UserRepository userRepository;
 
+  private Key signInKey;
+  private JwtParser jwtParser;
+  // Claims of tokens whose signature already checked out, keyed by the full compact token.
+  private Map<String, Claims> verifiedTokens;
+
+  @PostConstruct
+  void init() {
+    signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+    jwtParser = Jwts.parserBuilder()
+            .setSigningKey(signInKey)
+            .build();
+    verifiedTokens = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Claims> eldest) {
+        return size() > verifiedCacheSize;
+      }
+    });
+  }
+
+  /**
+   * Parses and verifies the token once, so callers can read every claim they need
+   * from the returned holder instead of re-parsing the token for each one.
+   */
+  public Claims resolveClaims(String token) {
+    final Claims claims = extractAllClaims(token);
+    if (claims == null) {
+      throw new InvalidTokenException("Invalid JWT");
+    }
+    return claims;
+  }
+
 
   public String extractUsername(String token) {
     return extractClaim(token, Claims::getSubject);
@@ -79,7 +117,25 @@ public class JwtService {
   public String generateRefreshToken(
       UserDetails userDetails
   ) {
-    return buildToken(new HashMap<>(), userDetails, refreshExpiration);
+    Map<String, Object> claims = new HashMap<>();
+    claims.put(TOKEN_TYPE_CLAIM, REFRESH_TOKEN_TYPE);
+    return buildToken(claims, userDetails, refreshExpiration);
+  }
+
+  /**
+   * Refresh tokens carry a {@code token_type} claim. Ones issued before that claim existed
+   * are told apart by their lifetime: anything valid for longer than an access token is
+   * treated as a refresh token.
+   */
+  public boolean isRefreshToken(Claims claims) {
+    Object tokenType = claims.get(TOKEN_TYPE_CLAIM);
+    if (tokenType != null) {
+      return REFRESH_TOKEN_TYPE.equals(tokenType);
+    }
+    if (claims.getIssuedAt() == null || claims.getExpiration() == null) {
+      return true;
+    }
+    return claims.getExpiration().getTime() - claims.getIssuedAt().getTime() > jwtExpiration;
   }
 
   private String buildToken(
@@ -102,8 +158,12 @@ public class JwtService {
     return (username.equals(userDetails.getUsername())) && isTokenExpired(token);
   }
 
+  public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+    return userDetails.getUsername().equals(claims.getSubject()) && !claims.getExpiration().before(new Date());
+  }
+
   public boolean isTokenValid(String token) {
-    var tokenEntity = tokenRepository.findByToken(token).orElse(null);
+    var tokenEntity = tokenStateService.findToken(token).orElse(null);
     return tokenEntity != null && !tokenEntity.isExpired() && !tokenEntity.isRevoked() && isTokenExpired(token);
   }
 
@@ -131,13 +191,20 @@ public class JwtService {
   }
 
   private Claims extractAllClaims(String token) {
+    Claims cached = verifiedTokens.get(token);
+    if (cached != null) {
+      if (cached.getExpiration() != null && cached.getExpiration().before(new Date())) {
+        verifiedTokens.remove(token);
+      } else {
+        return cached;
+      }
+    }
     try {
-      return Jwts
-              .parserBuilder()
-              .setSigningKey(getSignInKey())
-              .build()
+      Claims claims = jwtParser
               .parseClaimsJws(token)
               .getBody();
+      verifiedTokens.put(token, claims);
+      return claims;
     } catch (JwtException e) {
       logger.error("Failed to extract claims: {}", e.getMessage());
       return null;
@@ -145,8 +212,7 @@ public class JwtService {
   }
 
   private Key getSignInKey() {
-    byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-    return Keys.hmacShaKeyFor(keyBytes);
+    return signInKey;
   }
 
 }
@@ -1,6 +1,7 @@
 package com.saraf.security.config;
 
 import com.saraf.security.token.TokenRepository;
+import com.saraf.security.token.TokenStateService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -9,11 +10,14 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.logout.LogoutHandler;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+
 @Service
 @RequiredArgsConstructor
 public class LogoutService implements LogoutHandler {
 
   private final TokenRepository tokenRepository;
+  private final TokenStateService tokenStateService;
 
   @Override
   public void logout(
@@ -27,12 +31,14 @@ public class LogoutService implements LogoutHandler {
       return;
     }
     jwt = authHeader.substring(7);
-    var storedToken = tokenRepository.findByToken(jwt)
+    var storedToken = tokenStateService.findToken(jwt)
         .orElse(null);
     if (storedToken != null) {
       storedToken.setExpired(true);
       storedToken.setRevoked(true);
+      storedToken.setRevokedAt(LocalDateTime.now());
       tokenRepository.save(storedToken);
+      tokenStateService.revoke(jwt);
       SecurityContextHolder.clearContext();
     }
   }
@@ -0,0 +1,101 @@
+package com.saraf.security.config;
+
+import com.saraf.security.user.Role;
+import org.springframework.security.access.hierarchicalroles.RoleHierarchy;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Role hierarchy resolved once at startup into a table of reachable authorities per
+ * {@link Role}. The authorities of an authenticated principal are exactly one role's
+ * {@link Role#getAuthorities()}, so a check only has to find that role and return its
+ * precomputed list, which allocates nothing. Any other collection takes the general path.
+ */
+public class PrecomputedRoleHierarchy implements RoleHierarchy {
+
+    private final Map<String, Role> rolesByAuthority = new HashMap<>();
+    private final Map<Role, List<GrantedAuthority>> reachable = new EnumMap<>(Role.class);
+    private final Map<Role, List<GrantedAuthority>> impliedRoleAuthorities = new EnumMap<>(Role.class);
+
+    /**
+     * @param directlyImplied for each role, the roles it directly includes
+     *                        (ADMIN includes MANAGER, and so on)
+     */
+    public PrecomputedRoleHierarchy(Map<Role, Set<Role>> directlyImplied) {
+        for (Role role : Role.values()) {
+            rolesByAuthority.put(role.getRoleAuthority().getAuthority(), role);
+
+            List<GrantedAuthority> implied = new ArrayList<>();
+            for (Role impliedRole : closure(role, directlyImplied)) {
+                implied.add(impliedRole.getRoleAuthority());
+            }
+            impliedRoleAuthorities.put(role, List.copyOf(implied));
+
+            List<GrantedAuthority> all = new ArrayList<>(role.getAuthorities());
+            all.addAll(implied);
+            reachable.put(role, List.copyOf(all));
+        }
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getReachableGrantedAuthorities(
+            Collection<? extends GrantedAuthority> authorities) {
+        if (authorities == null || authorities.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Role role = singleRole(authorities);
+        if (role != null) {
+            return reachable.get(role);
+        }
+        Set<GrantedAuthority> result = new LinkedHashSet<>(authorities);
+        for (GrantedAuthority authority : authorities) {
+            Role granted = rolesByAuthority.get(authority.getAuthority());
+            if (granted != null) {
+                result.addAll(impliedRoleAuthorities.get(granted));
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    // The role whose authority list these authorities are, or null when they are anything else.
+    private Role singleRole(Collection<? extends GrantedAuthority> authorities) {
+        if (!(authorities instanceof List<? extends GrantedAuthority> list)) {
+            return null;
+        }
+        Role role = rolesByAuthority.get(list.get(list.size() - 1).getAuthority());
+        if (role == null || list.size() != role.getAuthorities().size()) {
+            return null;
+        }
+        List<? extends GrantedAuthority> expected = role.getAuthorities();
+        for (int i = 0; i < list.size(); i++) {
+            if (!expected.get(i).getAuthority().equals(list.get(i).getAuthority())) {
+                return null;
+            }
+        }
+        return role;
+    }
+
+    private static Set<Role> closure(Role role, Map<Role, Set<Role>> directlyImplied) {
+        Set<Role> seen = EnumSet.noneOf(Role.class);
+        Deque<Role> pending = new ArrayDeque<>(directlyImplied.getOrDefault(role, Set.of()));
+        while (!pending.isEmpty()) {
+            Role next = pending.pop();
+            if (next != role && seen.add(next)) {
+                pending.addAll(directlyImplied.getOrDefault(next, Set.of()));
+            }
+        }
+        return seen;
+    }
+}
@@ -0,0 +1,54 @@
+package com.saraf.security.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Routes whose handlers never look at the caller, so {@link JwtAuthenticationFilter} can
+ * serve them without parsing the token, loading the user or checking the token table.
+ * Built once from the security whitelist; patterns are compiled up front and a request is
+ * classified by its path within the application and its method alone.
+ */
+final class PublicRoutes {
+
+    private final List<Route> routes = new ArrayList<>();
+
+    /**
+     * @param whiteList    patterns the security chain permits without authentication
+     * @param restrictions whitelisted patterns that only skip authentication for the given
+     *                     methods; an empty set means the route always authenticates a
+     *                     token when one is sent
+     */
+    PublicRoutes(String[] whiteList, Map<String, Set<String>> restrictions) {
+        PathPatternParser parser = PathPatternParser.defaultInstance;
+        for (String pattern : whiteList) {
+            Set<String> methods = restrictions.get(pattern);
+            if (methods == null || !methods.isEmpty()) {
+                routes.add(new Route(parser.parse(pattern), methods));
+            }
+        }
+    }
+
+    boolean isPublic(HttpServletRequest request) {
+        // The servlet path is empty when the request is not dispatched through a servlet mapping, as under MockMvc
+        PathContainer path = PathContainer.parsePath(UrlPathHelper.defaultInstance.getPathWithinApplication(request));
+        for (Route route : routes) {
+            if (route.pattern().matches(path)
+                    && (route.methods() == null || route.methods().contains(request.getMethod()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Route(PathPattern pattern, Set<String> methods) {
+    }
+}
@@ -0,0 +1,137 @@
+package com.saraf.security.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections for {@code @Transactional(readOnly = true)} work to a replica and
+ * everything else to the primary. Replicas are used round robin while they are healthy;
+ * a replica lagging more than {@code maxLag} milliseconds, or one that fails to hand out
+ * a connection, is skipped until the next lag check finds it caught up. With no healthy
+ * replica, reads go to the primary.
+ * <p>
+ * The read-only flag is only known once the transaction has started, so this has to sit
+ * behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ * With open-in-view the first connection of a request is held until it ends, so a
+ * read-only method should not be followed by writes in the same request.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    // Zero while the replica has replayed everything it received, otherwise the age of the last replayed commit
+    static final String LAG_QUERY = """
+            SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE CAST(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 AS BIGINT) END""";
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, long maxLag) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.maxLag = maxLag;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Replica replica = readReplica();
+        if (replica != null) {
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                replica.markDown(e.getMessage());
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Replica replica = readReplica();
+        if (replica != null) {
+            try {
+                return replica.dataSource.getConnection(username, password);
+            } catch (SQLException e) {
+                replica.markDown(e.getMessage());
+            }
+        }
+        return primary.getConnection(username, password);
+    }
+
+    @Scheduled(fixedDelayString = "${application.datasource.replica.lag-check-interval:5000}")
+    public void checkLag() {
+        for (Replica replica : replicas) {
+            try {
+                Long lag = new JdbcTemplate(replica.dataSource).queryForObject(LAG_QUERY, Long.class);
+                if (lag != null && lag <= maxLag) {
+                    replica.markUp();
+                } else {
+                    replica.markDown("replication lag " + lag + " ms");
+                }
+            } catch (RuntimeException e) {
+                replica.markDown(e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private Replica readReplica() {
+        if (replicas.isEmpty() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return null;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private static final class Replica {
+
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        private Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        private void markUp() {
+            if (!healthy) {
+                logger.info("Replica {} is back in rotation", dataSource);
+            }
+            healthy = true;
+        }
+
+        private void markDown(String reason) {
+            if (healthy) {
+                logger.warn("Taking replica {} out of rotation: {}", dataSource, reason);
+            }
+            healthy = false;
+        }
+    }
+}
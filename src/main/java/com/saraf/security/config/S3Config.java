@@ -3,19 +3,63 @@ package com.saraf.security.config;
 import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.auth.EnvironmentVariableCredentialsProvider;
 import com.amazonaws.auth.profile.ProfileCredentialsProvider;
+import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
 @Configuration
 public class S3Config {
 
+    @Value("${application.s3.region:us-west-1}")
+    private String region;
+    @Value("${application.s3.endpoint:}")
+    private String endpoint;
+    @Value("${application.s3.multipart-threshold:16777216}")
+    private long multipartThreshold;
+    @Value("${application.s3.part-size:8388608}")
+    private long partSize;
+    @Value("${application.s3.upload-threads:4}")
+    private int uploadThreads;
+
     @Bean
     public AmazonS3 amazonS3() {
-        return AmazonS3ClientBuilder.standard()
-                .withCredentials(new EnvironmentVariableCredentialsProvider())
-                .withRegion("us-west-1")
+        AmazonS3ClientBuilder builder = AmazonS3ClientBuilder.standard()
+                .withCredentials(new EnvironmentVariableCredentialsProvider());
+        if (endpoint.isBlank()) {
+            builder.withRegion(region);
+        } else {
+            // S3-compatible stand-ins such as MinIO only serve path-style requests
+            builder.withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(endpoint, region))
+                    .withPathStyleAccessEnabled(true);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Uploads receipts on a dedicated, fixed-size pool, so at most {@code upload-threads}
+     * uploads or parts are in flight no matter how many admins upload at once. Files above
+     * {@code multipart-threshold} go up as a multipart upload.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public TransferManager receiptTransferManager(AmazonS3 amazonS3) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return TransferManagerBuilder.standard()
+                .withS3Client(amazonS3)
+                .withMultipartUploadThreshold(multipartThreshold)
+                .withMinimumUploadPartSize(partSize)
+                .withExecutorFactory(() -> Executors.newFixedThreadPool(uploadThreads, runnable -> {
+                    Thread thread = new Thread(runnable, "s3-upload-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }))
                 .build();
     }
 }
@@ -2,14 +2,15 @@ package com.saraf.security.config;
 
 import com.saraf.security.oauth2.CustomOAuth2SuccessHandler;
 import com.saraf.security.oauth2.CustomOAuth2UserService;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
+import org.springframework.security.access.hierarchicalroles.RoleHierarchy;
 import org.springframework.security.access.hierarchicalroles.RoleHierarchyAuthoritiesMapper;
-import org.springframework.security.access.hierarchicalroles.RoleHierarchyImpl;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -22,6 +23,9 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.authentication.logout.LogoutHandler;
 
+import java.util.Map;
+import java.util.Set;
+
 import static com.saraf.security.user.Permission.ADMIN_CREATE;
 import static com.saraf.security.user.Permission.ADMIN_DELETE;
 import static com.saraf.security.user.Permission.ADMIN_READ;
@@ -52,6 +56,12 @@ public class SecurityConfiguration {
             "/login**",
             "/oauth2/**"
     };
+    // Whitelisted routes served without looking at the caller. Some /api/v1/user endpoints
+    // read the principal and posting a rate is admin-only, so those still authenticate.
+    static final PublicRoutes PUBLIC_ROUTES = new PublicRoutes(WHITE_LIST_URL, Map.of(
+            "/api/v1/user/**", Set.of(),
+            "/api/v1/rate/**", Set.of("GET", "HEAD", "OPTIONS")
+    ));
     private static final String[] USER_LIST_URL = {
             "/api/v1/recipient/**",
             "/api/v1/transfer/**"
@@ -69,9 +79,13 @@ public class SecurityConfiguration {
                 .cors(withDefaults())
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(req -> req
+                        // Streamed responses finish on an async dispatch; the request was authorized when it started
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(WHITE_LIST_URL)
                         .permitAll()
                         .requestMatchers(USER_LIST_URL).hasAnyRole(ADMIN.name(), MANAGER.name(), USER.name())
+                        // Pool statistics and per-repository connection hold timers
+                        .requestMatchers("/actuator/metrics/**").hasRole(ADMIN.name())
                         .requestMatchers("/api/v1/management/**").hasAnyRole(ADMIN.name(), MANAGER.name())
                         .requestMatchers(GET, "/api/v1/management/**").hasAnyAuthority(ADMIN_READ.name(), MANAGER_READ.name())
                         .requestMatchers(GET, "/api/v1/rate/**").hasAnyAuthority(ADMIN_READ.name(), MANAGER_READ.name(), USER.name())
@@ -120,15 +134,16 @@ public class SecurityConfiguration {
     }
 
     @Bean
-    public RoleHierarchyImpl roleHierarchy() {
-        RoleHierarchyImpl roleHierarchy = new RoleHierarchyImpl();
-        String hierarchy = "ROLE_ADMIN > ROLE_MANAGER \n ROLE_MANAGER > ROLE_USER";
-        roleHierarchy.setHierarchy(hierarchy);
-        return roleHierarchy;
+    public RoleHierarchy roleHierarchy() {
+        // ADMIN > MANAGER > USER
+        return new PrecomputedRoleHierarchy(Map.of(
+                ADMIN, Set.of(MANAGER),
+                MANAGER, Set.of(USER)
+        ));
     }
 
     @Bean
-    public GrantedAuthoritiesMapper authoritiesMapper(RoleHierarchyImpl roleHierarchy) {
+    public GrantedAuthoritiesMapper authoritiesMapper(RoleHierarchy roleHierarchy) {
         return new RoleHierarchyAuthoritiesMapper(roleHierarchy);
     }
 }
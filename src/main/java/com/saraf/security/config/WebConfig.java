@@ -1,14 +1,19 @@
 package com.saraf.security.config;
 
+import com.saraf.security.admin.s3.ReceiptVariant;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
+import org.springframework.format.FormatterRegistry;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.util.List;
+import java.util.Locale;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
@@ -29,4 +34,24 @@ public class WebConfig implements WebMvcConfigurer {
         source.registerCorsConfiguration("/**", configuration);
         return source;
     }
+
+    // Declaring the interceptor replaces Boot's open-in-view registration
+    @Bean
+    public OpenEntityManagerInViewInterceptor openEntityManagerInViewInterceptor() {
+        return new OpenEntityManagerInViewInterceptor();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Open-in-view keeps the first connection of a request until it ends; a receipt upload must not hold one while talking to S3
+        registry.addWebRequestInterceptor(openEntityManagerInViewInterceptor())
+                .excludePathPatterns("/api/v1/admin/upload-receipt/**");
+    }
+
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        // ?size=thumbnail rather than ?size=THUMBNAIL
+        registry.addConverter(String.class, ReceiptVariant.class,
+                source -> ReceiptVariant.valueOf(source.trim().toUpperCase(Locale.ROOT)));
+    }
 }
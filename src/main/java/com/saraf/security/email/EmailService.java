@@ -2,32 +2,52 @@ package com.saraf.security.email;
 
 import com.saraf.service.transfer.Status;
 import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.InternetAddress;
 import lombok.RequiredArgsConstructor;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.mail.MailException;
 import org.springframework.stereotype.Service;
-import org.springframework.ui.freemarker.SpringTemplateLoader;
 import org.thymeleaf.context.Context;
 import org.thymeleaf.spring6.SpringTemplateEngine;
 
-import java.io.UnsupportedEncodingException;
-import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
-import static java.nio.charset.StandardCharsets.*;
-import static org.springframework.mail.javamail.MimeMessageHelper.MULTIPART_MODE_MIXED;
-
+/**
+ * Renders emails and hands them to the {@link MailDispatcher}. Sending never happens on
+ * the caller's thread, except for {@link #deliverAll}, whose caller, the outbox relay,
+ * retries failures itself. Recipients are validated up front so a bad address fails the
+ * request instead of a background send.
+ */
 @Service
 @RequiredArgsConstructor
 public class EmailService {
 
-    private final JavaMailSender mailSender;
+    private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
+
     private final SpringTemplateEngine templateEngine;
+    private final MailDispatcher mailDispatcher;
+
+    /**
+     * Parses every template once at startup. The engine caches parsed templates, so the
+     * first email of each kind is no slower than the rest and a broken template shows up
+     * in the startup log rather than in a user's signup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void precompileTemplates() {
+        for (EmailTemplateName template : EmailTemplateName.values()) {
+            try {
+                templateEngine.process(template.getName(), new Context());
+            } catch (RuntimeException e) {
+                logger.error("Email template {} failed to compile", template.getName(), e);
+            }
+        }
+    }
 
-    @Async
     public void sendEmail(
             String to,
             String username,
@@ -35,7 +55,7 @@ public class EmailService {
             String confirmationUrl,
             String activationCode,
             String subject
-    ) throws MessagingException, UnsupportedEncodingException {
+    ) throws MessagingException {
         String templateName;
         if (emailTemplateName == null) {
             templateName = "confirm-email";
@@ -43,66 +63,37 @@ public class EmailService {
             templateName = emailTemplateName.getName();
         }
 
-        MimeMessage mimeMessage = mailSender.createMimeMessage();
-        MimeMessageHelper mimeMessageHelper = new MimeMessageHelper(mimeMessage, MULTIPART_MODE_MIXED, UTF_8.name());
         Map<String, Object> properties = new HashMap<>();
         properties.put("username", username);
         properties.put("confirmationUrl", confirmationUrl);
         properties.put("activation_code", activationCode);
 
-        Context context = new Context();
-        context.setVariables(properties);
-
-        mimeMessageHelper.setFrom("amine@sarafbrk.com", "SARAF");
-        mimeMessageHelper.setTo(to);
-        mimeMessageHelper.setSubject(subject);
-
-        String template = templateEngine.process(templateName, context);
-
-        mimeMessageHelper.setText(template, true);
-
-        mailSender.send(mimeMessage);
-
+        mailDispatcher.submit(new OutgoingMail(validated(to), subject, render(templateName, properties), true));
     }
 
-    public void sendContactUsEmail(String name, String email, String message) throws MessagingException, UnsupportedEncodingException {
-        MimeMessage mimeMessage = mailSender.createMimeMessage();
-        MimeMessageHelper mimeMessageHelper = new MimeMessageHelper(mimeMessage, MULTIPART_MODE_MIXED, UTF_8.name());
-
-        mimeMessageHelper.setFrom("amine@sarafbrk.com", "SARAF");
-        mimeMessageHelper.setTo("contact@sarafbrk.com");
-        mimeMessageHelper.setSubject("Contact Us Message");
-        mimeMessageHelper.setText("You have received a new message from: \n\n" +
-                                    "Name: " + name + "\n" +
-                                    "Email: " + email + "\n" +
-                                    "Message: " + message);
+    public void sendContactUsEmail(String name, String email, String message) throws MessagingException {
+        String body = "You have received a new message from: \n\n" +
+                "Name: " + name + "\n" +
+                "Email: " + email + "\n" +
+                "Message: " + message;
 
-        mailSender.send(mimeMessage);
+        mailDispatcher.submit(new OutgoingMail("contact@sarafbrk.com", "Contact Us Message", body, false));
     }
 
-    public void sendContactConfirmEmail(String name, String email, String message) throws MessagingException, UnsupportedEncodingException {
-        MimeMessage mimeMessage = mailSender.createMimeMessage();
-        MimeMessageHelper mimeMessageHelper = new MimeMessageHelper(mimeMessage, MULTIPART_MODE_MIXED, UTF_8.name());
+    public void sendContactConfirmEmail(String name, String email, String message) throws MessagingException {
         Map<String, Object> properties = new HashMap<>();
         properties.put("name", name);
         properties.put("message", message);
 
-        Context context = new Context();
-        context.setVariables(properties);
-
-        mimeMessageHelper.setFrom("amine@sarafbrk.com", "SARAF");
-        mimeMessageHelper.setTo(email);
-        mimeMessageHelper.setSubject("Thank you for contacting us!");
-
-        String template = templateEngine.process(EmailTemplateName.CONTACT_CONFIRM.name(), context);
-        mimeMessageHelper.setText(template, true);
-
-        mailSender.send(mimeMessage);
+        String body = render(EmailTemplateName.CONTACT_CONFIRM.getName(), properties);
+        mailDispatcher.submit(new OutgoingMail(validated(email), "Thank you for contacting us!", body, true));
     }
 
-    public void sendStatusUpdateEmail(String name, String email, Status status) throws MessagingException, UnsupportedEncodingException {
-        MimeMessage mimeMessage = mailSender.createMimeMessage();
-        MimeMessageHelper mimeMessageHelper = new MimeMessageHelper(mimeMessage, MULTIPART_MODE_MIXED, UTF_8.name());
+    /**
+     * Renders the status update email without sending it; the outbox relay sends these in
+     * batches through {@link #deliverAll} and retries the ones that fail.
+     */
+    public OutgoingMail statusUpdateEmail(String name, String email, Status status) throws MessagingException {
         Map<String, Object> properties = new HashMap<>();
         properties.put("name", name);
         properties.put("status", status.toString().toUpperCase());
@@ -111,17 +102,27 @@ public class EmailService {
                        : "Your transfer was canceled as we did not receive your payment. Please feel free to try again at your convenience.";
         properties.put("message", message);
 
-        Context context = new Context();
-        context.setVariables(properties);
-
-        mimeMessageHelper.setFrom("amine@sarafbrk.com", "SARAF");
-        mimeMessageHelper.setTo(email);
-        mimeMessageHelper.setSubject("Transfer Status Update");
+        String body = render(EmailTemplateName.STATUS_CHANGE.getName(), properties);
+        return new OutgoingMail(validated(email), "Transfer Status Update", body, true);
+    }
 
-        String template = templateEngine.process(EmailTemplateName.STATUS_CHANGE.getName(), context);
+    /**
+     * Sends the messages on the calling thread over one SMTP connection.
+     *
+     * @return for each message, in order, why it was not sent, or {@code null} once it was
+     */
+    public List<MailException> deliverAll(List<OutgoingMail> mails) {
+        return mailDispatcher.deliverAll(mails);
+    }
 
-        mimeMessageHelper.setText(template, true);
+    private String render(String templateName, Map<String, Object> properties) {
+        Context context = new Context();
+        context.setVariables(properties);
+        return templateEngine.process(templateName, context);
+    }
 
-        mailSender.send(mimeMessage);
+    private static String validated(String address) throws MessagingException {
+        new InternetAddress(address, true);
+        return address;
     }
 }
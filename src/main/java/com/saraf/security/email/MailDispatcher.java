@@ -0,0 +1,229 @@
+package com.saraf.security.email;
+
+import com.saraf.service.outbox.OutboxEventType;
+import com.saraf.service.outbox.OutboxService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.mail.javamail.MimeMessageHelper.MULTIPART_MODE_MIXED;
+
+/**
+ * Sends email off the request thread. Messages wait in a bounded queue and are sent by
+ * background workers in batches; {@link JavaMailSender#send(MimeMessage...)} delivers a
+ * whole batch over one SMTP connection, so a burst of mail costs one connect and login
+ * rather than one per message.
+ * <p>
+ * Nothing is dropped: a message that cannot be queued, fails to send or is still queued at
+ * shutdown is stored as an {@link OutboxEventType#EMAIL} outbox event, and the outbox relay
+ * retries it with its usual backoff through {@link #deliver}.
+ */
+@Component
+@RequiredArgsConstructor
+public class MailDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailDispatcher.class);
+
+    private final JavaMailSender mailSender;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.mailing.sender.from:amine@sarafbrk.com}")
+    private String from;
+    @Value("${application.mailing.sender.from-name:SARAF}")
+    private String fromName;
+    @Value("${application.mailing.sender.queue-capacity:500}")
+    private int queueCapacity;
+    @Value("${application.mailing.sender.workers:1}")
+    private int workers;
+    @Value("${application.mailing.sender.batch-size:20}")
+    private int batchSize;
+
+    private BlockingQueue<OutgoingMail> queue;
+    private ExecutorService executor;
+    private Timer sendLatency;
+    private Counter sent;
+    private Counter failed;
+    private Counter deferred;
+
+    @PostConstruct
+    void init() {
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        meterRegistry.gauge("mail.queue.size", queue, BlockingQueue::size);
+        sendLatency = Timer.builder("mail.send.latency").register(meterRegistry);
+        sent = meterRegistry.counter("mail.messages.sent");
+        failed = meterRegistry.counter("mail.messages.failed");
+        deferred = meterRegistry.counter("mail.messages.deferred");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "mail-dispatcher-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::drain);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        List<OutgoingMail> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        pending.forEach(mail -> defer(mail, "shutdown"));
+    }
+
+    public void submit(OutgoingMail mail) {
+        if (!queue.offer(mail)) {
+            defer(mail, "mail queue is full");
+        }
+    }
+
+    /**
+     * Sends the message on the calling thread, for callers that retry on their own.
+     */
+    public void deliver(OutgoingMail mail) {
+        MailException failure = deliverAll(List.of(mail)).get(0);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Sends the messages on the calling thread over one SMTP connection, for callers that
+     * retry on their own.
+     *
+     * @return for each message, in order, why it was not sent, or {@code null} once it was
+     */
+    public List<MailException> deliverAll(List<OutgoingMail> mails) {
+        List<MailException> failures = new ArrayList<>(Collections.nCopies(mails.size(), null));
+        List<MimeMessage> messages = new ArrayList<>(mails.size());
+        List<Integer> positions = new ArrayList<>(mails.size());
+        for (int i = 0; i < mails.size(); i++) {
+            try {
+                messages.add(toMimeMessage(mails.get(i)));
+                positions.add(i);
+            } catch (MailPreparationException e) {
+                failures.set(i, e);
+            }
+        }
+        if (!messages.isEmpty()) {
+            long start = System.nanoTime();
+            try {
+                mailSender.send(messages.toArray(MimeMessage[]::new));
+            } catch (MailSendException e) {
+                // Messages missing from the failed map went out before the failure
+                Map<Object, Exception> failedMessages = e.getFailedMessages();
+                for (int i = 0; i < messages.size(); i++) {
+                    Exception cause = failedMessages.get(messages.get(i));
+                    if (cause != null) {
+                        failures.set(positions.get(i), new MailSendException(cause.getMessage(), cause));
+                    } else if (failedMessages.isEmpty()) {
+                        failures.set(positions.get(i), e);
+                    }
+                }
+            } catch (MailException e) {
+                positions.forEach(position -> failures.set(position, e));
+            } finally {
+                sendLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+        for (MailException failure : failures) {
+            (failure == null ? sent : failed).increment();
+        }
+        return failures;
+    }
+
+    private void drain() {
+        List<OutgoingMail> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                sendBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(mail -> defer(mail, "shutdown"));
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error while sending email", e);
+                batch.forEach(mail -> defer(mail, e.getMessage()));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void sendBatch(List<OutgoingMail> batch) {
+        List<MailException> failures = deliverAll(batch);
+        for (int i = 0; i < batch.size(); i++) {
+            MailException failure = failures.get(i);
+            if (failure instanceof MailPreparationException) {
+                // Retrying cannot fix a message that does not build
+                logger.error("Dropping malformed email to {}: {}", batch.get(i).to(), failure.getMessage());
+            } else if (failure != null) {
+                defer(batch.get(i), failure.getMessage());
+            }
+        }
+    }
+
+    private void defer(OutgoingMail mail, String reason) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> outboxService.record(OutboxEventType.EMAIL, mail));
+            deferred.increment();
+            logger.warn("Email to {} deferred to the outbox: {}", mail.to(), reason);
+        } catch (RuntimeException e) {
+            logger.error("Lost email to {} ({}): could not store it for retry", mail.to(), reason, e);
+        }
+    }
+
+    private MimeMessage toMimeMessage(OutgoingMail mail) {
+        try {
+            MimeMessage mimeMessage = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, MULTIPART_MODE_MIXED, UTF_8.name());
+            helper.setFrom(from, fromName);
+            helper.setTo(mail.to());
+            helper.setSubject(mail.subject());
+            helper.setText(mail.body(), mail.html());
+            return mimeMessage;
+        } catch (MessagingException | UnsupportedEncodingException e) {
+            throw new MailPreparationException(e);
+        }
+    }
+}
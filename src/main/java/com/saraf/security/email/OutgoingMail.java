@@ -0,0 +1,7 @@
+package com.saraf.security.email;
+
+/**
+ * A rendered email, ready to be sent or stored in the outbox for a later retry.
+ */
+public record OutgoingMail(String to, String subject, String body, boolean html) {
+}
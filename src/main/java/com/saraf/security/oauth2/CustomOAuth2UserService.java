@@ -4,6 +4,7 @@ import com.saraf.security.auth.AuthenticationService;
 import com.saraf.security.config.JwtService;
 import com.saraf.security.token.Token;
 import com.saraf.security.token.TokenRepository;
+import com.saraf.security.token.TokenStateService;
 import com.saraf.security.token.TokenType;
 import com.saraf.security.user.Role;
 import com.saraf.security.user.User;
@@ -17,6 +18,7 @@ import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.Map;
 
 @Service
@@ -26,6 +28,7 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
     private final UserRepository userRepository;
     private final JwtService jwtService;
     private final TokenRepository tokenRepository;
+    private final TokenStateService tokenStateService;
     private final PasswordEncoder passwordEncoder;
 
 
@@ -96,23 +99,17 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
         // Implement the logic to save the token to your database
         var token = Token.builder()
                 .user(user)
-                .token(jwtToken)
+                .token(tokenStateService.storedValue(jwtToken))
                 .tokenType(TokenType.BEARER)
                 .expired(false)
                 .revoked(false)
+                .createdAt(LocalDateTime.now())
                 .build();
         tokenRepository.save(token);
     }
 
     private void revokeAllUserTokens(User user) {
-        var validUserTokens = tokenRepository.findAllValidTokenByUser(user.getId());
-        if (validUserTokens.isEmpty())
-            return;
-        validUserTokens.forEach(token -> {
-            token.setExpired(true);
-            token.setRevoked(true);
-        });
-        tokenRepository.saveAll(validUserTokens);
+        tokenStateService.revokeAllForUser(user.getId());
     }
 
 }
@@ -8,18 +8,27 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+// Back the revoked-token filter's loads. Production does not generate its schema; db/upgrade.sql creates them there.
+@Table(indexes = {
+    @Index(name = "idx_token_created_at", columnList = "createdAt"),
+    @Index(name = "idx_token_revoked_at", columnList = "revokedAt")
+})
 public class Token {
 
   @Id
@@ -36,6 +45,10 @@ public class Token {
 
   private boolean expired;
 
+  private LocalDateTime createdAt;
+
+  private LocalDateTime revokedAt;
+
   @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "user_id")
   private User user;
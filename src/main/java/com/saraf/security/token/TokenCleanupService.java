@@ -0,0 +1,124 @@
+package com.saraf.security.token;
+
+import com.saraf.security.user.VerTokenRepository;
+import com.saraf.security.user.forgot_password.PasswordResetTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the token tables small. Dead rows are deleted in bounded batches, each one a short
+ * transaction that walks the primary key, so no run holds locks on a large range:
+ * <ul>
+ *     <li>access tokens that are expired or revoked and older than the refresh-token
+ *     lifetime, by which time the JWT itself has expired;</li>
+ *     <li>verification and password reset tokens that expired, or were used, more than
+ *     {@code grace-period} ago.</li>
+ * </ul>
+ */
+@Service
+@RequiredArgsConstructor
+public class TokenCleanupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenCleanupService.class);
+
+    private final TokenRepository tokenRepository;
+    private final VerTokenRepository verTokenRepository;
+    private final PasswordResetTokenRepository passwordResetTokenRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.security.jwt.refresh-token.expiration}")
+    private long refreshExpiration;
+    @Value("${application.security.token-cleanup.grace-period:86400000}")
+    private long gracePeriod;
+    @Value("${application.security.token-cleanup.batch-size:1000}")
+    private int batchSize;
+
+    private final Map<String, Counter> purged = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> indexSizes = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        for (String table : List.of("token", "verification_token", "password_reset_token")) {
+            purged.put(table, Counter.builder("tokens.purged").tag("table", table).register(meterRegistry));
+            AtomicLong indexSize = new AtomicLong(-1);
+            indexSizes.put(table, indexSize);
+            Gauge.builder("tokens.index.size", indexSize, AtomicLong::get)
+                    .tag("table", table)
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(cron = "${application.security.token-cleanup.cron:0 0 4 * * *}")
+    public void purgeDeadTokens() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime tokenCutoff = now.minus(Duration.ofMillis(refreshExpiration));
+        LocalDateTime graceCutoff = now.minus(Duration.ofMillis(gracePeriod));
+
+        int tokens = purge("token", tokenRepository,
+                (afterId, page) -> tokenRepository.findDeadTokenIds(afterId, tokenCutoff, page));
+        int verification = purge("verification_token", verTokenRepository,
+                (afterId, page) -> verTokenRepository.findDeadTokenIds(afterId, graceCutoff, page));
+        int passwordReset = purge("password_reset_token", passwordResetTokenRepository,
+                (afterId, page) -> passwordResetTokenRepository.findDeadTokenIds(afterId, graceCutoff, page));
+        logger.info("Purged {} access, {} verification and {} password reset tokens", tokens, verification, passwordReset);
+
+        indexSizes.forEach(this::refreshIndexSize);
+    }
+
+    int purge(String table, JpaRepository<?, Integer> repository, DeadIdFinder finder) {
+        Pageable page = PageRequest.of(0, batchSize);
+        int total = 0;
+        int afterId = 0;
+        while (true) {
+            List<Integer> ids = finder.find(afterId, page);
+            if (ids.isEmpty()) {
+                break;
+            }
+            repository.deleteAllByIdInBatch(ids);
+            total += ids.size();
+            afterId = ids.get(ids.size() - 1);
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        purged.get(table).increment(total);
+        return total;
+    }
+
+    private void refreshIndexSize(String table, AtomicLong size) {
+        try {
+            Long bytes = jdbcTemplate.queryForObject("SELECT pg_indexes_size(?::regclass)", Long.class, table);
+            size.set(bytes == null ? -1 : bytes);
+        } catch (DataAccessException e) {
+            // Not PostgreSQL (H2 in tests); the gauge stays at -1
+            logger.debug("Could not read index size of {}: {}", table, e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    interface DeadIdFinder {
+        List<Integer> find(int afterId, Pageable page);
+    }
+}
@@ -1,10 +1,15 @@
 package com.saraf.security.token;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface TokenRepository extends JpaRepository<Token, Integer> {
@@ -18,4 +23,25 @@ public interface TokenRepository extends JpaRepository<Token, Integer> {
 
   Optional<Token> findByToken(String token);
 
+  @Query("select t.token from Token t where t.revoked = true and t.createdAt > :createdAfter")
+  List<String> findRevokedTokenValues(@Param("createdAfter") LocalDateTime createdAfter);
+
+  @Query("select t.token from Token t where t.revokedAt > :revokedAfter and t.createdAt > :createdAfter")
+  List<String> findTokenValuesRevokedAfter(@Param("revokedAfter") LocalDateTime revokedAfter,
+                                           @Param("createdAfter") LocalDateTime createdAfter);
+
+  @Query("select t.token from Token t where t.user.id = :userId and (t.expired = false or t.revoked = false)")
+  List<String> findAllValidTokenValuesByUser(@Param("userId") Integer userId);
+
+  // One UPDATE for all of the user's tokens instead of a dirty-checked update per row
+  @Transactional
+  @Modifying
+  @Query("update Token t set t.expired = true, t.revoked = true, t.revokedAt = :revokedAt " +
+          "where t.user.id = :userId and (t.expired = false or t.revoked = false)")
+  int revokeAllByUser(@Param("userId") Integer userId, @Param("revokedAt") LocalDateTime revokedAt);
+
+  @Query("select t.id from Token t where t.id > :afterId and (t.expired = true or t.revoked = true) " +
+          "and t.createdAt < :before order by t.id")
+  List<Integer> findDeadTokenIds(@Param("afterId") Integer afterId, @Param("before") LocalDateTime before, Pageable pageable);
+
 }
@@ -0,0 +1,217 @@
+package com.saraf.security.token;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Answers "has this token been revoked?" from memory. Every revoked token that can still
+ * verify, meaning it was created within the access-token lifetime, goes into a bloom
+ * filter, so a token that was never revoked is accepted without touching the database.
+ * Recently revoked ids are also kept in an exact deny-list; only a filter hit that is not
+ * on the deny-list falls back to {@link TokenRepository#findByToken}.
+ * <p>
+ * Revocations made on this instance take effect at once. Those made on another instance
+ * reach this one through the token table: every {@code sync-interval} the rows revoked
+ * since the previous poll are added to the filter, re-reading {@code sync-lookback} before
+ * it to catch transactions that committed late. Until that poll, for up to
+ * {@code sync-interval}, a token revoked elsewhere is still accepted here. Once per
+ * access-token lifetime the filter is rebuilt so tokens that expired drop out of it.
+ * <p>
+ * It also decides how a JWT is stored in the token table: as is, or, when
+ * {@code store-digest} is on, as its SHA-256 digest so the unique index holds short,
+ * fixed-length keys. Everything that reads or writes {@link Token#getToken()} goes
+ * through {@link #storedValue} or {@link #findToken}.
+ */
+@Service
+@RequiredArgsConstructor
+public class TokenStateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenStateService.class);
+    private static final int MIN_FILTER_CAPACITY = 10_000;
+
+    private final TokenRepository tokenRepository;
+
+    @Value("${application.security.token-state.deny-list-size:10000}")
+    private int denyListSize;
+    @Value("${application.security.token-state.store-digest:false}")
+    private boolean storeDigest;
+    @Value("${application.security.token-state.sync-lookback:10000}")
+    private long syncLookback;
+    @Value("${application.security.jwt.expiration}")
+    private long jwtExpiration;
+
+    private volatile RevokedTokenFilter revokedFilter = new RevokedTokenFilter(MIN_FILTER_CAPACITY);
+    private Set<String> denyList;
+    // Revocations up to this time are in the filter
+    private volatile LocalDateTime syncedUntil;
+    private volatile LocalDateTime rebuiltAt;
+    // Entries the filter takes from polls before its false-positive rate degrades
+    private int pollHeadroom;
+
+    @PostConstruct
+    void init() {
+        denyList = Collections.synchronizedSet(Collections.newSetFromMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > denyListSize;
+            }
+        }));
+    }
+
+    public String storedValue(String jwt) {
+        if (!storeDigest) {
+            return jwt;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(jwt.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Finds the row of a JWT. Rows written before {@code store-digest} was switched on still
+     * hold the raw token, so with digests on a miss is retried with the raw form.
+     */
+    public Optional<Token> findToken(String jwt) {
+        Optional<Token> token = tokenRepository.findByToken(storedValue(jwt));
+        if (token.isEmpty() && storeDigest) {
+            return tokenRepository.findByToken(jwt);
+        }
+        return token;
+    }
+
+    public boolean isRevoked(String jwt) {
+        String tokenId = tokenId(storedValue(jwt));
+        // A row written before the digest switch is in the filter under the raw token's id
+        String rawId = storeDigest ? tokenId(jwt) : null;
+        if (!revokedFilter.mightContain(tokenId) && (rawId == null || !revokedFilter.mightContain(rawId))) {
+            return false;
+        }
+        if (denyList.contains(tokenId) || (rawId != null && denyList.contains(rawId))) {
+            return true;
+        }
+        boolean revoked = findToken(jwt)
+                .map(t -> t.isExpired() || t.isRevoked())
+                .orElse(true);
+        if (revoked) {
+            denyList.add(tokenId);
+        }
+        return revoked;
+    }
+
+    public void revoke(String jwt) {
+        revokeStored(storedValue(jwt));
+    }
+
+    private void revokeStored(String stored) {
+        String tokenId = tokenId(stored);
+        denyList.add(tokenId);
+        RevokedTokenFilter filter;
+        do {
+            filter = revokedFilter;
+            filter.put(tokenId);
+        } while (filter != revokedFilter);
+    }
+
+    /**
+     * Revokes every live token of the user with a single bulk UPDATE and adds them to the
+     * in-memory filter.
+     */
+    public void revokeAllForUser(Integer userId) {
+        List<String> validTokens = tokenRepository.findAllValidTokenValuesByUser(userId);
+        if (validTokens.isEmpty()) {
+            return;
+        }
+        tokenRepository.revokeAllByUser(userId, LocalDateTime.now());
+        validTokens.forEach(this::revokeStored);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRevokedTokens() {
+        rebuild();
+    }
+
+    /**
+     * Adds the tokens revoked on other instances since the last poll to the filter, and
+     * rebuilds it once the access-token lifetime has passed since the last rebuild.
+     */
+    @Scheduled(
+            initialDelayString = "${application.security.token-state.sync-interval:5000}",
+            fixedDelayString = "${application.security.token-state.sync-interval:5000}"
+    )
+    public void syncRevokedTokens() {
+        LocalDateTime rebuilt = rebuiltAt;
+        if (rebuilt == null || rebuilt.isBefore(LocalDateTime.now().minus(Duration.ofMillis(jwtExpiration)))) {
+            rebuild();
+        } else {
+            poll();
+        }
+    }
+
+    void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> revokedTokens = tokenRepository.findRevokedTokenValues(oldestVerifiable(now));
+        List<String> recent;
+        synchronized (denyList) {
+            recent = new ArrayList<>(denyList);
+        }
+        int capacity = Math.max(MIN_FILTER_CAPACITY, 2 * (revokedTokens.size() + recent.size()));
+        RevokedTokenFilter filter = new RevokedTokenFilter(capacity);
+        revokedTokens.forEach(jwt -> filter.put(tokenId(jwt)));
+        // Local revocations whose rows were not yet visible to the query above
+        recent.forEach(filter::put);
+        revokedFilter = filter;
+        pollHeadroom = capacity - revokedTokens.size() - recent.size();
+        syncedUntil = now;
+        rebuiltAt = now;
+        logger.debug("Revoked token filter rebuilt with {} entries", revokedTokens.size());
+    }
+
+    void poll() {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> revokedTokens = tokenRepository.findTokenValuesRevokedAfter(
+                syncedUntil.minus(Duration.ofMillis(syncLookback)), oldestVerifiable(now));
+        if (revokedTokens.size() > pollHeadroom) {
+            rebuild();
+            return;
+        }
+        pollHeadroom -= revokedTokens.size();
+        RevokedTokenFilter filter = revokedFilter;
+        revokedTokens.forEach(jwt -> filter.put(tokenId(jwt)));
+        syncedUntil = now;
+    }
+
+    // Tokens created earlier have expired; the lookback covers clocks that differ between instances
+    private LocalDateTime oldestVerifiable(LocalDateTime now) {
+        return now.minus(Duration.ofMillis(jwtExpiration + syncLookback));
+    }
+
+    // The signature segment is unique per token and much shorter than the whole JWT; a digest is used whole.
+    static String tokenId(String stored) {
+        int lastDot = stored.lastIndexOf('.');
+        return lastDot >= 0 ? stored.substring(lastDot + 1) : stored;
+    }
+}
@@ -0,0 +1,68 @@
+package com.saraf.security.user;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+
+/**
+ * Lightweight, immutable principal placed in the security context for JWT-authenticated
+ * requests. Unlike {@link User} it carries no password and no lazy JPA associations.
+ */
+@Getter
+public final class AuthenticatedUser implements UserDetails {
+
+    private final Integer id;
+    private final String email;
+    private final String firstname;
+    private final String lastname;
+    private final Role role;
+    private final boolean enabled;
+    private final Collection<? extends GrantedAuthority> authorities;
+
+    private AuthenticatedUser(Integer id, String email, String firstname, String lastname, Role role, boolean enabled) {
+        this.id = id;
+        this.email = email;
+        this.firstname = firstname;
+        this.lastname = lastname;
+        this.role = role;
+        this.enabled = enabled;
+        this.authorities = role.getAuthorities();
+    }
+
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(user.getId(), user.getEmail(), user.getFirstname(), user.getLastname(),
+                user.getRole(), user.isEnabled());
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "AuthenticatedUser(id=" + id + ", email=" + email + ", role=" + role + ")";
+    }
+}
@@ -0,0 +1,55 @@
+package com.saraf.security.user;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches {@link AuthenticatedUser} principals by email so that JWT-authenticated requests
+ * do not load the full {@link User} entity every time. Entries expire after a TTL and are
+ * dropped right away whenever the role, password or enabled state of the user changes.
+ */
+@Service
+@RequiredArgsConstructor
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+
+    @Value("${application.security.principal-cache.ttl:60000}")
+    private long ttl;
+
+    private final Map<String, CachedPrincipal> principals = new ConcurrentHashMap<>();
+
+    public AuthenticatedUser loadPrincipal(String email) {
+        long now = System.currentTimeMillis();
+        CachedPrincipal cached = principals.get(email);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.principal();
+        }
+        AuthenticatedUser principal = userRepository.findByEmail(email)
+                .map(AuthenticatedUser::from)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        principals.put(email, new CachedPrincipal(principal, now + ttl));
+        return principal;
+    }
+
+    public void evict(String email) {
+        if (email != null) {
+            principals.remove(email);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.security.principal-cache.ttl:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        principals.values().removeIf(cached -> cached.expiresAt() <= now);
+    }
+
+    private record CachedPrincipal(AuthenticatedUser principal, long expiresAt) {
+    }
+}
@@ -1,16 +1,13 @@
 package com.saraf.security.user;
 
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Getter
-@RequiredArgsConstructor
 public enum Role {
 
   USER(Set.of(
@@ -45,13 +42,16 @@ public enum Role {
   ));
 
   private final Set<Permission> permissions;
+  // Built once and shared by every principal with this role; the ROLE_ authority is always last.
+  private final List<SimpleGrantedAuthority> authorities;
+  private final SimpleGrantedAuthority roleAuthority;
 
-  public List<SimpleGrantedAuthority> getAuthorities() {
-    var authorities = getPermissions()
-            .stream()
-            .map(permission -> new SimpleGrantedAuthority(permission.getPermission()))
-            .collect(Collectors.toList());
-    authorities.add(new SimpleGrantedAuthority("ROLE_" + this.name()));
-    return authorities;
+  Role(Set<Permission> permissions) {
+    this.permissions = permissions;
+    this.roleAuthority = new SimpleGrantedAuthority("ROLE_" + name());
+    List<SimpleGrantedAuthority> authorities = new ArrayList<>(permissions.size() + 1);
+    permissions.forEach(permission -> authorities.add(new SimpleGrantedAuthority(permission.getPermission())));
+    authorities.add(roleAuthority);
+    this.authorities = List.copyOf(authorities);
   }
 }
@@ -8,10 +8,12 @@ import org.springframework.stereotype.Service;
 public class RoleService {
 
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
     @Autowired
-    public RoleService(UserRepository userRepository) {
+    public RoleService(UserRepository userRepository, PrincipalCache principalCache) {
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
     }
 
     public void updateUserRole(Integer userId, Role newRole) {
@@ -20,5 +22,6 @@ public class RoleService {
 
         user.setRole(newRole);
         userRepository.save(user);
+        principalCache.evict(user.getEmail());
     }
 }
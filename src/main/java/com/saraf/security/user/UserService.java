@@ -9,6 +9,7 @@ import com.saraf.security.user.forgot_password.PasswordResetTokenRepository;
 import jakarta.mail.MessagingException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -25,10 +26,11 @@ public class UserService {
     private final UserRepository repository;
     private final PasswordResetTokenRepository resetTokenRepository;
     private final EmailService emailService;
+    private final PrincipalCache principalCache;
 
     public void changePassword(ChangePasswordRequest request, Principal connectedUser) {
 
-        var user = (User) ((UsernamePasswordAuthenticationToken) connectedUser).getPrincipal();
+        var user = getConnectedUser(connectedUser);
 
         if (!passwordEncoder.matches(request.getCurrentPassword(), user.getPassword())) {
             throw new PasswordResetException("Incorrect password");
@@ -40,10 +42,11 @@ public class UserService {
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
 
         repository.save(user);
+        principalCache.evict(user.getEmail());
     }
 
      void updatePhoneNumber(Principal connectedUser, String phoneNumber) {
-        var user = (User) ((UsernamePasswordAuthenticationToken) connectedUser).getPrincipal();
+        var user = getConnectedUser(connectedUser);
 
         if (!isValidPhoneNumber(phoneNumber)) {
             throw new IllegalArgumentException("Invalid phone number format");
@@ -88,6 +91,7 @@ public class UserService {
         User user = resetToken.getUser();
         user.setPassword(passwordEncoder.encode(newPassword));
         repository.save(user);
+        principalCache.evict(user.getEmail());
 
         resetTokenRepository.delete(resetToken);
     }
@@ -98,15 +102,25 @@ public class UserService {
     }
 
     public boolean hasPhoneNumber(Principal connectedUser) {
-        var user = (User) ((UsernamePasswordAuthenticationToken) connectedUser).getPrincipal();
+        var user = getConnectedUser(connectedUser);
         String phoneNumber = user.getPhoneNumber();
 
         return phoneNumber != null && !phoneNumber.isEmpty();
     }
 
     public String getName(Principal connectedUser) {
-        var user = (User) ((UsernamePasswordAuthenticationToken) connectedUser).getPrincipal();
+        var user = getConnectedUser(connectedUser);
         return user.getFirstname();
     }
 
+    // JWT requests carry the cached AuthenticatedUser, password logins still carry the entity itself.
+    private User getConnectedUser(Principal connectedUser) {
+        var principal = ((UsernamePasswordAuthenticationToken) connectedUser).getPrincipal();
+        if (principal instanceof AuthenticatedUser authenticatedUser) {
+            return repository.findById(authenticatedUser.getId())
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        }
+        return (User) principal;
+    }
+
 }
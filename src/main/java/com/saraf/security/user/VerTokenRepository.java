@@ -1,9 +1,11 @@
 package com.saraf.security.user;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +16,7 @@ public interface VerTokenRepository extends JpaRepository<VerificationToken, Int
     @Query("SELECT t FROM VerificationToken t WHERE t.user.id = :userId AND t.validatedAt IS NULL AND t.expires > CURRENT_TIMESTAMP")
     List<VerificationToken> findAllActiveTokensByUser(@Param("userId") Integer userId);
 
+    @Query("SELECT t.id FROM VerificationToken t WHERE t.id > :afterId AND (t.expires < :before OR t.validatedAt < :before) ORDER BY t.id")
+    List<Integer> findDeadTokenIds(@Param("afterId") Integer afterId, @Param("before") LocalDateTime before, Pageable pageable);
+
 }
@@ -1,11 +1,19 @@
 package com.saraf.security.user.forgot_password;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PasswordResetTokenRepository  extends JpaRepository<PasswordResetToken, Integer> {
     Optional<PasswordResetToken> findByToken(String token);
+
+    @Query("SELECT t.id FROM PasswordResetToken t WHERE t.id > :afterId AND t.expirationTime < :before ORDER BY t.id")
+    List<Integer> findDeadTokenIds(@Param("afterId") Integer afterId, @Param("before") LocalDateTime before, Pageable pageable);
 }
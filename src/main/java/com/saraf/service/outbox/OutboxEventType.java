@@ -0,0 +1,10 @@
+package com.saraf.service.outbox;
+
+public enum OutboxEventType {
+
+    TRANSFER_CREATED,
+    TRANSFER_STATUS_CHANGED,
+    RATE_UPDATED,
+    EMAIL
+
+}
@@ -0,0 +1,154 @@
+package com.saraf.service.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.saraf.security.email.EmailService;
+import com.saraf.security.email.OutgoingMail;
+import com.saraf.service.telegram.TelegramBot;
+import com.saraf.service.transfer.TransferAdminDTO;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Polls the outbox table and hands each event to Telegram or email. An event is only
+ * marked processed once its handler returned, so delivery is at-least-once; failed events
+ * stay pending and are retried on the next poll until max-attempts is reached. The emails
+ * of a batch are sent together over one SMTP connection.
+ * <p>
+ * A batch is claimed in one short transaction, delivered with no transaction or row lock
+ * held, and its results are written in a second one. A claim lapses after claim-timeout,
+ * so the events of a relay that died mid-batch are picked up again.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+    // Width of the last_error column
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final TelegramBot telegramBot;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.outbox.batch-size:50}")
+    private int batchSize;
+    @Value("${application.outbox.max-attempts:10}")
+    private int maxAttempts;
+    @Value("${application.outbox.retention-days:7}")
+    private int retentionDays;
+    @Value("${application.outbox.claim-timeout:300000}")
+    private long claimTimeout;
+
+    @Scheduled(fixedDelayString = "${application.outbox.poll-interval:1000}")
+    public int relayBatch() {
+        List<OutboxEvent> events = transactionTemplate.execute(status -> claimBatch());
+        if (events == null || events.isEmpty()) {
+            return 0;
+        }
+        deliver(events);
+        events.forEach(event -> event.setClaimedUntil(null));
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.saveAll(events));
+        return events.size();
+    }
+
+    // SKIP LOCKED keeps concurrent relays off each other's rows only until this commits; the claim covers the rest
+    private List<OutboxEvent> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> events = outboxRepository.findPendingBatch(maxAttempts, now, PageRequest.of(0, batchSize));
+        if (!events.isEmpty()) {
+            LocalDateTime claimedUntil = now.plus(claimTimeout, ChronoUnit.MILLIS);
+            outboxRepository.claim(events.stream().map(OutboxEvent::getId).toList(), claimedUntil);
+            events.forEach(event -> event.setClaimedUntil(claimedUntil));
+        }
+        return events;
+    }
+
+    private void deliver(List<OutboxEvent> events) {
+        List<OutboxEvent> mailEvents = new ArrayList<>();
+        List<OutgoingMail> mails = new ArrayList<>();
+        for (OutboxEvent event : events) {
+            try {
+                OutgoingMail mail = toMail(event);
+                if (mail != null) {
+                    mailEvents.add(event);
+                    mails.add(mail);
+                    continue;
+                }
+                dispatch(event);
+                processed(event);
+            } catch (Exception e) {
+                failed(event, e);
+            }
+        }
+        if (!mails.isEmpty()) {
+            // All emails of the batch go out over one SMTP connection
+            List<MailException> failures = emailService.deliverAll(mails);
+            for (int i = 0; i < mailEvents.size(); i++) {
+                if (failures.get(i) == null) {
+                    processed(mailEvents.get(i));
+                } else {
+                    failed(mailEvents.get(i), failures.get(i));
+                }
+            }
+        }
+    }
+
+    private static void processed(OutboxEvent event) {
+        event.setProcessedAt(LocalDateTime.now());
+        event.setLastError(null);
+    }
+
+    private static void failed(OutboxEvent event, Exception e) {
+        event.setAttempts(event.getAttempts() + 1);
+        String error = e.getMessage();
+        event.setLastError(error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+        logger.warn("Outbox event {} ({}) failed on attempt {}: {}",
+                event.getId(), event.getType(), event.getAttempts(), e.getMessage());
+    }
+
+    @Scheduled(cron = "${application.outbox.cleanup-cron:0 30 3 * * *}")
+    @Transactional
+    public void purgeProcessed() {
+        int deleted = outboxRepository.deleteProcessedBefore(LocalDateTime.now().minusDays(retentionDays));
+        logger.info("Purged {} processed outbox events", deleted);
+    }
+
+    void dispatch(OutboxEvent event) throws Exception {
+        switch (event.getType()) {
+            case TRANSFER_CREATED -> telegramBot.sendTransferToChannel(
+                    objectMapper.readValue(event.getPayload(), TransferAdminDTO.class));
+            case RATE_UPDATED -> {
+                RateUpdatePayload rate = objectMapper.readValue(event.getPayload(), RateUpdatePayload.class);
+                telegramBot.sendNewRateToChannel(rate.getNewRate(), rate.getOldRate());
+            }
+            default -> throw new IllegalStateException("Unexpected outbox event type " + event.getType());
+        }
+    }
+
+    // The email an event sends, or null for events delivered elsewhere
+    OutgoingMail toMail(OutboxEvent event) throws Exception {
+        return switch (event.getType()) {
+            case TRANSFER_STATUS_CHANGED -> {
+                StatusUpdatePayload update = objectMapper.readValue(event.getPayload(), StatusUpdatePayload.class);
+                yield emailService.statusUpdateEmail(update.getFirstname(), update.getEmail(), update.getStatus());
+            }
+            case EMAIL -> objectMapper.readValue(event.getPayload(), OutgoingMail.class);
+            default -> null;
+        };
+    }
+}
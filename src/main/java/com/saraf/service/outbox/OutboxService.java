@@ -0,0 +1,36 @@
+package com.saraf.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Stores an event in the caller's transaction, so it is committed together with the
+     * change it describes and delivered later by {@link OutboxRelay}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OutboxEvent record(OutboxEventType type, Object payload) {
+        try {
+            OutboxEvent event = OutboxEvent.builder()
+                    .type(type)
+                    .payload(objectMapper.writeValueAsString(payload))
+                    .createdAt(LocalDateTime.now())
+                    .build();
+            return outboxRepository.save(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + type + " event", e);
+        }
+    }
+}
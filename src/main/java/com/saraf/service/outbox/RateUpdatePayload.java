@@ -0,0 +1,13 @@
+package com.saraf.service.outbox;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateUpdatePayload {
+    private int newRate;
+    private int oldRate;
+}
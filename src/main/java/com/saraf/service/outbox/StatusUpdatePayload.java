@@ -0,0 +1,16 @@
+package com.saraf.service.outbox;
+
+import com.saraf.service.transfer.Status;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatusUpdatePayload {
+    private Integer transferId;
+    private String firstname;
+    private String email;
+    private Status status;
+}
@@ -1,12 +1,17 @@
 package com.saraf.service.rate;
 
 import com.saraf.security.admin.ApiResponse;
-import com.saraf.service.telegram.TelegramBot;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/v1/rate")
@@ -14,25 +19,39 @@ import org.springframework.web.bind.annotation.*;
 public class ExchangeRateController {
 
     private final ExchangeRateService exchangeRateService;
-    private final TelegramBot telegramBot;
+    private final RateStreamService rateStreamService;
+
+    @Value("${application.rate.max-age:5}")
+    private long maxAge;
 
+    /**
+     * Served from the in-memory snapshot and versioned by the rate's id. Because the ETag
+     * is on the ResponseEntity, Spring answers a matching If-None-Match with a bodiless 304.
+     */
     @GetMapping
     public ResponseEntity<Double> getRate() {
-        try {
-            return ResponseEntity.ok(exchangeRateService.getCurrentRate());
-        } catch (NullPointerException e) {
+        ExchangeRate rate = exchangeRateService.getCurrentSnapshot();
+        if (rate == null) {
             return ResponseEntity.notFound().build();
         }
+        return ResponseEntity.ok()
+                .eTag(String.valueOf(rate.getId()))
+                .cacheControl(CacheControl.maxAge(maxAge, TimeUnit.SECONDS).cachePublic())
+                .body(rate.getCurrentRate());
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamRate() {
+        return rateStreamService.subscribe()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
     }
 
     @PostMapping()
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> updateRate(@RequestParam Integer newRate) {
-        int oldRate = (int) exchangeRateService.getCurrentRate();
-
         if (newRate < 300 && newRate > 100){
             exchangeRateService.updateRate(newRate);
-            telegramBot.sendNewRateToChannel(newRate, oldRate);
 
             return ResponseEntity.status(HttpStatus.CREATED).body(new ApiResponse(true, "Rate was successfully updated", "" + newRate));
         } else {
@@ -1,23 +1,110 @@
 package com.saraf.service.rate;
 
+import com.saraf.service.outbox.OutboxEventType;
+import com.saraf.service.outbox.OutboxService;
+import com.saraf.service.outbox.RateUpdatePayload;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
 public class ExchangeRateService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateService.class);
+
     private final ExchangeRateRepository rateRepository;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Latest committed rate. Always replaced as a whole, never mutated, so readers need no locking.
+    private volatile ExchangeRate snapshot;
 
     public double getCurrentRate() {
-        return rateRepository.findTopByOrderByIdDesc().getCurrentRate();
+        return getCurrentSnapshot().getCurrentRate();
+    }
+
+    public ExchangeRate getCurrentSnapshot() {
+        ExchangeRate current = snapshot;
+        if (current == null) {
+            current = refreshSnapshot();
+        }
+        return current;
     }
 
+    @Transactional
     public void updateRate(double newRate) {
         if (newRate < 300 && newRate > 100) {
+            ExchangeRate previous = snapshot;
             ExchangeRate exchangeRate = new ExchangeRate();
             exchangeRate.setCurrentRate(newRate);
-            rateRepository.save(exchangeRate);
+            ExchangeRate saved = rateRepository.save(exchangeRate);
+            int oldRate = previous != null ? (int) previous.getCurrentRate() : 0;
+            outboxService.record(OutboxEventType.RATE_UPDATED, new RateUpdatePayload((int) newRate, oldRate));
+            publishSnapshot(saved);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSnapshot() {
+        refreshSnapshot();
+        logger.info("Loaded exchange rate snapshot: {}", snapshot);
+    }
+
+    /**
+     * Re-reads the latest rate from the database. Runs on a fixed delay so that a rate
+     * written by another instance is picked up here without any per-request query.
+     */
+    @Scheduled(
+            initialDelayString = "${application.rate.sync-interval:30000}",
+            fixedDelayString = "${application.rate.sync-interval:30000}"
+    )
+    public void syncSnapshot() {
+        refreshSnapshot();
+    }
+
+    ExchangeRate refreshSnapshot() {
+        ExchangeRate latest = rateRepository.findTopByOrderByIdDesc();
+        if (latest != null) {
+            swap(latest);
+        }
+        return snapshot;
+    }
+
+    private void publishSnapshot(ExchangeRate rate) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    swap(rate);
+                }
+            });
+        } else {
+            swap(rate);
+        }
+    }
+
+    private synchronized void swap(ExchangeRate rate) {
+        ExchangeRate current = snapshot;
+        if (current != null && current.getId() != null && rate.getId() != null && current.getId() > rate.getId()) {
+            return;
+        }
+        snapshot = ExchangeRate.builder()
+                .id(rate.getId())
+                .currentRate(rate.getCurrentRate())
+                .build();
+        if (current != null && !Objects.equals(current.getId(), rate.getId())) {
+            eventPublisher.publishEvent(new RateChangedEvent(rate.getId(), rate.getCurrentRate()));
         }
     }
 
@@ -0,0 +1,8 @@
+package com.saraf.service.rate;
+
+/**
+ * Published on every instance when its exchange rate snapshot moves to a newer rate,
+ * whether the rate was set locally or picked up from the database.
+ */
+public record RateChangedEvent(Integer id, double rate) {
+}
@@ -0,0 +1,127 @@
+package com.saraf.service.rate;
+
+import com.saraf.service.sse.SseSubscriber;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Pushes exchange rate changes to Server-Sent Events subscribers. Subscribers are async
+ * servlet responses parked in a registry, so an idle one holds no thread. Each
+ * {@link RateChangedEvent} is serialized once and queued to every subscriber; the writes
+ * run on a small pool, and a subscriber too slow to keep up is dropped instead of holding
+ * up the others. A periodic heartbeat keeps proxies from closing idle streams and evicts
+ * clients that went away.
+ */
+@Service
+@RequiredArgsConstructor
+public class RateStreamService {
+
+    private final ExchangeRateService exchangeRateService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.rate.stream.timeout:1800000}")
+    private long timeout;
+    @Value("${application.rate.stream.max-subscribers:20000}")
+    private int maxSubscribers;
+    @Value("${application.rate.stream.send-threads:4}")
+    private int sendThreads;
+    @Value("${application.rate.stream.send-buffer:16}")
+    private int sendBuffer;
+
+    private final Set<SseSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Places taken in the registry, reserved before a subscriber is added so the limit holds under concurrent subscribes
+    private final AtomicInteger reserved = new AtomicInteger();
+    private ExecutorService sender;
+
+    @PostConstruct
+    void init() {
+        meterRegistry.gauge("rate.stream.subscribers", subscribers, Set::size);
+        AtomicInteger threadNumber = new AtomicInteger();
+        sender = Executors.newFixedThreadPool(sendThreads, runnable -> {
+            Thread thread = new Thread(runnable, "rate-stream-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        sender.shutdownNow();
+        subscribers.forEach(SseSubscriber::close);
+    }
+
+    /**
+     * Registers a subscriber and sends it the current rate straight away.
+     *
+     * @return the emitter, or empty when the registry is full
+     */
+    public Optional<SseEmitter> subscribe() {
+        if (reserved.incrementAndGet() > maxSubscribers) {
+            reserved.decrementAndGet();
+            return Optional.empty();
+        }
+        SseSubscriber subscriber = new SseSubscriber(new SseEmitter(timeout), sendBuffer, sender, this::remove);
+        subscribers.add(subscriber);
+
+        ExchangeRate current = exchangeRateService.getCurrentSnapshot();
+        if (current != null) {
+            subscriber.send(rateEvent(new RateChangedEvent(current.getId(), current.getCurrentRate())));
+        }
+        return Optional.of(subscriber.emitter());
+    }
+
+    @EventListener
+    public void onRateChanged(RateChangedEvent event) {
+        broadcast(rateEvent(event));
+    }
+
+    @Scheduled(fixedDelayString = "${application.rate.stream.heartbeat-interval:15000}")
+    public void heartbeat() {
+        broadcast(() -> SseEmitter.event().comment("heartbeat"));
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private void broadcast(Supplier<SseEmitter.SseEventBuilder> event) {
+        for (SseSubscriber subscriber : subscribers) {
+            subscriber.send(event);
+        }
+    }
+
+    // Called once per subscriber, so the reservation is released exactly once
+    private void remove(SseSubscriber subscriber) {
+        subscribers.remove(subscriber);
+        reserved.decrementAndGet();
+    }
+
+    private Supplier<SseEmitter.SseEventBuilder> rateEvent(RateChangedEvent event) {
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize rate event", e);
+        }
+        String id = String.valueOf(event.id());
+        return () -> SseEmitter.event().id(id).name("rate").data(data);
+    }
+}
@@ -34,7 +34,7 @@ public class RecipientController {
     }
 
     @GetMapping("/current-user")
-    public List<Recipient> getRecipientsForCurrentUser() {
+    public List<RecipientView> getRecipientsForCurrentUser() {
         return recipientService.getRecipientsForCurrentUser();
     }
 
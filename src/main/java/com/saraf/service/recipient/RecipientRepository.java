@@ -1,6 +1,8 @@
 package com.saraf.service.recipient;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,6 +13,13 @@ public interface RecipientRepository extends JpaRepository<Recipient, Integer> {
 
     List<Recipient> findByUserId(Integer id);
 
+    // One-time recipients are created as "OTR OTR" by a transfer to an unsaved CCP and are not offered for reuse
+    @Query("SELECT new com.saraf.service.recipient.RecipientView(r.id, r.firstname, r.lastname, r.ccp, r.phoneNumber, r.doContact) " +
+            "FROM Recipient r WHERE r.user.id = :userId AND r.isActive = true " +
+            "AND (COALESCE(UPPER(r.firstname), '') <> 'OTR' OR COALESCE(UPPER(r.lastname), '') <> 'OTR') " +
+            "ORDER BY r.id")
+    List<RecipientView> findActiveViewsByUserId(@Param("userId") Integer userId);
+
     Recipient findByUserIdAndAndCcp(Integer id, String ccp);
 
     Optional<Recipient> findByCcp(String ccp);
@@ -3,15 +3,23 @@ package com.saraf.service.recipient;
 import com.saraf.security.exception.DuplicateCcpException;
 import com.saraf.security.user.User;
 import com.saraf.security.user.UserRepository;
+import jakarta.annotation.PostConstruct;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @RequiredArgsConstructor
@@ -21,6 +29,29 @@ public class RecipientService {
     private final UserRepository userRepository;
     private final AuditorAware<Integer> auditorAware;
 
+    @Value("${application.recipient.cache.size:10000}")
+    private int cacheSize;
+    @Value("${application.recipient.cache.ttl:5000}")
+    private long cacheTtl;
+
+    // Active recipients per user id. Writes on this instance evict their user's entry, but
+    // behind a load balancer the user's next request may land on another instance, so the
+    // ttl is kept to a few seconds: it absorbs repeated renders of the picker, and a user's
+    // own change shows up everywhere within it.
+    private Map<Integer, CachedRecipients> activeRecipients;
+    // Bumped on every eviction, so a load that raced with a write is not cached
+    private final AtomicLong evictions = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        activeRecipients = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CachedRecipients> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
     public Recipient addRecipient(RecipientRequest request) {
         var user = getCurrentUser();
 
@@ -28,7 +59,9 @@ public class RecipientService {
 
         if (existingRecipient.isPresent()) {
             Recipient recipient = checkRecipient(request, existingRecipient);
-            return recipientRepository.save(recipient);
+            Recipient saved = recipientRepository.save(recipient);
+            evictAfterCommit(user.getId());
+            return saved;
         }
 
         Recipient recipient = new Recipient();
@@ -38,7 +71,9 @@ public class RecipientService {
         recipient.setPhoneNumber(request.getPhoneNumber());
         recipient.setDoContact(request.isDoContact());
         recipient.setUser(user);
-        return recipientRepository.save(recipient);
+        Recipient saved = recipientRepository.save(recipient);
+        evictAfterCommit(user.getId());
+        return saved;
     }
 
     private Recipient checkRecipient(RecipientRequest request, Optional<Recipient> existingRecipient) {
@@ -60,7 +95,7 @@ public class RecipientService {
         return recipient;
     }
 
-    public void addOneTimeRecipient(String ccp, User user) {
+    public Recipient addOneTimeRecipient(String ccp, User user) {
 
         Recipient recipient = new Recipient();
         recipient.setFirstname("OTR");
@@ -68,7 +103,9 @@ public class RecipientService {
         recipient.setCcp(ccp);
         recipient.setUser(user);
 
-        recipientRepository.save(recipient);
+        Recipient saved = recipientRepository.save(recipient);
+        evictAfterCommit(user.getId());
+        return saved;
 
     }
 
@@ -81,7 +118,9 @@ public class RecipientService {
         recipient.setPhoneNumber(request.getPhoneNumber());
         recipient.setDoContact(request.isDoContact());
 
-        return recipientRepository.save(recipient);
+        Recipient saved = recipientRepository.save(recipient);
+        evictAfterCommit(recipient);
+        return saved;
     }
 
     private User getCurrentUser() {
@@ -91,13 +130,28 @@ public class RecipientService {
                 .orElseThrow(() -> new UsernameNotFoundException("User with ID " + userId + " not found"));
     }
 
-    public List<Recipient> getRecipientsForCurrentUser() {
-        Integer userId = getCurrentUser().getId();
-        return recipientRepository.findByUserId(userId).stream()
-                .filter(Recipient::isActive)
-                .collect(Collectors.toList());
+    /**
+     * Lists the current user's active saved recipients, without one-time ones. Served from
+     * the per-user cache; a miss is read on the primary, since it usually follows the write
+     * that evicted the entry and a replica may not have that write yet.
+     */
+    @Transactional
+    public List<RecipientView> getRecipientsForCurrentUser() {
+        Integer userId = auditorAware.getCurrentAuditor()
+                .orElseThrow(() -> new UsernameNotFoundException("User not authenticated"));
+        CachedRecipients cached = activeRecipients.get(userId);
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+            return cached.recipients();
+        }
+        long seen = evictions.get();
+        List<RecipientView> recipients = List.copyOf(recipientRepository.findActiveViewsByUserId(userId));
+        if (evictions.get() == seen) {
+            activeRecipients.put(userId, new CachedRecipients(recipients, System.currentTimeMillis() + cacheTtl));
+        }
+        return recipients;
     }
 
+    @Transactional(readOnly = true)
     public List<Recipient> getAllRecipients() {
         return recipientRepository.findAll();
     }
@@ -107,6 +161,35 @@ public class RecipientService {
                 .orElseThrow(() -> new IllegalArgumentException("Recipient with CCP " + ccp + " not found."));
         recipient.setActive(false);
         recipientRepository.save(recipient);
+        evictAfterCommit(recipient);
+    }
+
+    private void evictAfterCommit(Recipient recipient) {
+        if (recipient.getUser() != null) {
+            evictAfterCommit(recipient.getUser().getId());
+        }
+    }
+
+    // Called after the save: evicting only once the write is visible keeps a concurrent read from caching the old list again.
+    private void evictAfterCommit(Integer userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(userId);
+                }
+            });
+        } else {
+            evict(userId);
+        }
+    }
+
+    private void evict(Integer userId) {
+        evictions.incrementAndGet();
+        activeRecipients.remove(userId);
+    }
+
+    private record CachedRecipients(List<RecipientView> recipients, long expiresAt) {
     }
 
 }
@@ -0,0 +1,8 @@
+package com.saraf.service.recipient;
+
+/**
+ * What the recipient picker shows for one of the current user's saved recipients, read
+ * without loading the entity or its user.
+ */
+public record RecipientView(Integer id, String firstname, String lastname, String ccp, String phoneNumber, boolean doContact) {
+}
@@ -0,0 +1,119 @@
+package com.saraf.service.sse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * One Server-Sent Events client with its own bounded send queue. Publishers only enqueue;
+ * the writes happen on a shared executor, one task per client at a time, so events reach
+ * each client in the order they were enqueued. A client whose connection stalls blocks
+ * only its own task, and once it falls {@code capacity} events behind it is dropped.
+ * <p>
+ * Events are queued as suppliers because an {@link SseEmitter.SseEventBuilder} can only
+ * be sent once.
+ */
+public class SseSubscriber {
+
+    private static final Logger logger = LoggerFactory.getLogger(SseSubscriber.class);
+
+    private final SseEmitter emitter;
+    private final Executor executor;
+    private final Consumer<SseSubscriber> onClose;
+    private final Queue<Supplier<SseEmitter.SseEventBuilder>> pending;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * @param onClose called once when the client goes away or is dropped
+     */
+    public SseSubscriber(SseEmitter emitter, int capacity, Executor executor, Consumer<SseSubscriber> onClose) {
+        this.emitter = emitter;
+        this.executor = executor;
+        this.onClose = onClose;
+        this.pending = new ArrayBlockingQueue<>(capacity);
+        emitter.onCompletion(this::closed);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> closed());
+    }
+
+    public SseEmitter emitter() {
+        return emitter;
+    }
+
+    public void send(Supplier<SseEmitter.SseEventBuilder> event) {
+        if (closed.get()) {
+            return;
+        }
+        if (!pending.offer(event)) {
+            logger.debug("Dropping SSE subscriber that is {} events behind", pending.size());
+            closed();
+            complete();
+            return;
+        }
+        schedule();
+    }
+
+    public void close() {
+        closed();
+        complete();
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    private void schedule() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                closed();
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            Supplier<SseEmitter.SseEventBuilder> event;
+            while (!closed.get() && (event = pending.poll()) != null) {
+                emitter.send(event.get());
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away; the servlet container completes the response
+            logger.debug("Dropping SSE subscriber: {}", e.getMessage());
+            closed();
+        } finally {
+            draining.set(false);
+        }
+        // An event enqueued after the last poll but before the flag was cleared
+        if (!closed.get() && !pending.isEmpty()) {
+            schedule();
+        }
+    }
+
+    private void closed() {
+        if (closed.compareAndSet(false, true)) {
+            pending.clear();
+            onClose.accept(this);
+        }
+    }
+
+    private void complete() {
+        try {
+            emitter.complete();
+        } catch (IllegalStateException e) {
+            logger.debug("SSE subscriber already completed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.saraf.service.telegram;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers channel messages off the request thread. Messages wait in a bounded queue and
+ * are posted by background workers over one shared, keep-alive {@link HttpClient}. Failed
+ * sends are retried with exponential backoff; while Telegram is rate limiting us, queued
+ * messages are merged into as few posts as fit in a single Telegram message.
+ */
+@Component
+@RequiredArgsConstructor
+public class TelegramDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(TelegramDispatcher.class);
+    private static final int MAX_MESSAGE_LENGTH = 4096;
+    private static final String SEPARATOR = "\n\n";
+
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+
+    @Value("${application.telegram.bot-token}")
+    private String botToken;
+    @Value("${application.telegram.channel-id}")
+    private String channelId;
+    @Value("${application.telegram.api-url:https://api.telegram.org}")
+    private String apiUrl;
+    @Value("${application.telegram.queue-capacity:1000}")
+    private int queueCapacity;
+    @Value("${application.telegram.workers:1}")
+    private int workers;
+    @Value("${application.telegram.max-attempts:4}")
+    private int maxAttempts;
+    @Value("${application.telegram.retry-backoff:500}")
+    private long retryBackoff;
+
+    private BlockingDeque<String> queue;
+    private HttpClient httpClient;
+    private ExecutorService executor;
+    private Timer sendLatency;
+    private Counter sent;
+    private Counter failed;
+    private Counter dropped;
+
+    @PostConstruct
+    void init() {
+        queue = new LinkedBlockingDeque<>(queueCapacity);
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        meterRegistry.gauge("telegram.queue.size", queue, BlockingDeque::size);
+        sendLatency = Timer.builder("telegram.send.latency").register(meterRegistry);
+        sent = meterRegistry.counter("telegram.messages.sent");
+        failed = meterRegistry.counter("telegram.messages.failed");
+        dropped = meterRegistry.counter("telegram.messages.dropped");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "telegram-dispatcher-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::drain);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public boolean enqueue(String message) {
+        if (!queue.offer(message)) {
+            dropped.increment();
+            logger.warn("Telegram queue is full, dropping message");
+            return false;
+        }
+        return true;
+    }
+
+    private void drain() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                deliver(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                failed.increment();
+                logger.error("Unexpected error while sending Telegram message", e);
+            }
+        }
+    }
+
+    void deliver(String message) throws InterruptedException {
+        String pending = message;
+        for (int attempt = 1; ; attempt++) {
+            long delay;
+            boolean rateLimited = false;
+            try {
+                HttpResponse<String> response = post(pending);
+                int status = response.statusCode();
+                if (status == 200) {
+                    sent.increment();
+                    return;
+                }
+                if (status == 429) {
+                    rateLimited = true;
+                    delay = retryAfter(response);
+                } else if (status < 500) {
+                    failed.increment();
+                    logger.warn("Telegram rejected message. Response Code: {} Body: {}", status, response.body());
+                    return;
+                } else {
+                    delay = backoff(attempt);
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to reach Telegram (attempt {}): {}", attempt, e.getMessage());
+                delay = backoff(attempt);
+            }
+            if (attempt >= maxAttempts) {
+                failed.increment();
+                logger.error("Giving up on Telegram message after {} attempts", attempt);
+                return;
+            }
+            Thread.sleep(delay);
+            if (rateLimited) {
+                pending = coalesce(pending);
+            }
+        }
+    }
+
+    private HttpResponse<String> post(String text) throws IOException, InterruptedException {
+        String payload = objectMapper.writeValueAsString(Map.of("chat_id", channelId, "text", text));
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(apiUrl + "/bot" + botToken + "/sendMessage"))
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(payload))
+                .build();
+        long start = System.nanoTime();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } finally {
+            sendLatency.record(Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    // Folds queued messages into the pending one, as long as the result stays within Telegram's limit.
+    private String coalesce(String pending) {
+        StringBuilder merged = new StringBuilder(pending);
+        String next;
+        while ((next = queue.poll()) != null) {
+            if (merged.length() + SEPARATOR.length() + next.length() > MAX_MESSAGE_LENGTH) {
+                queue.offerFirst(next);
+                break;
+            }
+            merged.append(SEPARATOR).append(next);
+        }
+        return merged.toString();
+    }
+
+    private long retryAfter(HttpResponse<String> response) {
+        try {
+            long seconds = objectMapper.readTree(response.body()).path("parameters").path("retry_after").asLong(1);
+            return seconds * 1000;
+        } catch (IOException e) {
+            return retryBackoff;
+        }
+    }
+
+    private long backoff(int attempt) {
+        return retryBackoff * (1L << Math.min(attempt - 1, 10));
+    }
+}
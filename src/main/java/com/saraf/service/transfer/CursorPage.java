@@ -0,0 +1,9 @@
+package com.saraf.service.transfer;
+
+import java.util.List;
+
+/**
+ * One page of a cursor-paginated listing. {@code nextCursor} is null on the last page.
+ */
+public record CursorPage<T>(List<T> content, String nextCursor, boolean hasNext) {
+}
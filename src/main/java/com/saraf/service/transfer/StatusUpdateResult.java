@@ -0,0 +1,15 @@
+package com.saraf.service.transfer;
+
+/**
+ * Outcome of one entry of a bulk status update. {@code status} is the transfer's status
+ * after the batch, or {@code null} when the transfer does not exist.
+ */
+public record StatusUpdateResult(Integer id, Status status, Outcome outcome) {
+
+    public enum Outcome {
+        UPDATED,
+        UNCHANGED,
+        CONFLICT,
+        NOT_FOUND
+    }
+}
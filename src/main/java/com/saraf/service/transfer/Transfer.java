@@ -20,12 +20,19 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table
+// Back the keyset listings. Production does not generate its schema; db/upgrade.sql creates them there.
+@Table(indexes = {
+        @Index(name = "idx_transfer_user_date_id", columnList = "user_id, transferDate, id"),
+        @Index(name = "idx_transfer_status_date_id", columnList = "status, transferDate, id"),
+        @Index(name = "idx_transfer_date_id", columnList = "transferDate, id")
+})
 public class Transfer {
 
+    // Each node reserves a block of 50 ids per sequence call and hands them out from memory.
+    // A sequence value is the top of its block: ids value - 49 to value are handed out for it.
     @Id
-    @GeneratedValue(strategy = GenerationType.TABLE, generator = "transfer_generator")
-    @TableGenerator(name = "transfer_generator", initialValue = 1001)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transfer_generator")
+    @SequenceGenerator(name = "transfer_generator", sequenceName = "transfer_seq", initialValue = 1001, allocationSize = 50)
     private Integer id;
     private BigDecimal amount;
     private BigDecimal amountReceived;
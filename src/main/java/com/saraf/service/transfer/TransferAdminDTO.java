@@ -1,14 +1,17 @@
 package com.saraf.service.transfer;
 
+import com.saraf.service.recipient.Recipient;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
 @Builder
+@NoArgsConstructor
 @AllArgsConstructor
 public class TransferAdminDTO {
     private Integer id;
@@ -23,4 +26,23 @@ public class TransferAdminDTO {
     private String code;
     private String firstName;
     private String lastName;
+
+    // Same shape as TransferRepository.findTransferById, built from entities already in memory
+    public static TransferAdminDTO of(Transfer transfer, String firstName, String lastName) {
+        Recipient recipient = transfer.getRecipient();
+        return TransferAdminDTO.builder()
+                .id(transfer.getId())
+                .amount(transfer.getAmount())
+                .amountReceived(transfer.getAmountReceived())
+                .status(transfer.getStatus())
+                .transferDate(transfer.getTransferDate())
+                .recipientFullName(recipient == null ? "One Time Transfer" : recipient.getFirstname() + " " + recipient.getLastname())
+                .recipientCCP(recipient == null ? null : recipient.getCcp())
+                .receipt(transfer.getReceipt())
+                .paymentMethod(transfer.getPaymentMethod())
+                .code(transfer.getCode())
+                .firstName(firstName)
+                .lastName(lastName)
+                .build();
+    }
 }
@@ -1,7 +1,7 @@
 package com.saraf.service.transfer;
 
+import com.saraf.security.admin.s3.ReceiptVariant;
 import com.saraf.security.admin.s3.S3Service;
-import com.saraf.service.telegram.TelegramBot;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -17,14 +17,11 @@ import java.util.List;
 public class TransferController {
 
     private final TransferService transferService;
-    private final TelegramBot telegramBot;
     private final S3Service s3Service;
 
     @PostMapping("/add")
     public ResponseEntity<Transfer> add(@RequestBody @Valid TransferRequest request) {
         Transfer transfer = transferService.addTransfer(request);
-        TransferAdminDTO telegramTransfer = transferService.getTransferById(transfer.getId());
-        telegramBot.sendTransferToChannel(telegramTransfer);
         return ResponseEntity.status(HttpStatus.CREATED).body(transfer);
     }
 
@@ -40,15 +37,28 @@ public class TransferController {
         return transferService.getNonCancelledTransfersForUser(page, size);
     }
 
+    @GetMapping("/scroll")
+    public CursorPage<TransferDTO> scrollTransfers(@RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "20") int size) {
+        return transferService.scrollTransfersForUser(cursor, size);
+    }
+
+    @GetMapping("/NonCancelled/scroll")
+    public CursorPage<TransferDTO> scrollNonCancelled(@RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "20") int size) {
+        return transferService.scrollNonCancelledTransfersForUser(cursor, size);
+    }
+
     @PostMapping("/check-transfer-credentials")
     public ResponseEntity<String> checkTransferCredentials(@RequestBody @Valid TransferRequest request) {
         return ResponseEntity.ok("ok");
     }
 
     @GetMapping("/receipt/{transferId}")
-    public ResponseEntity<String> getFileUrl(@PathVariable Integer transferId) {
+    public ResponseEntity<String> getFileUrl(@PathVariable Integer transferId,
+                                             @RequestParam(defaultValue = "original") ReceiptVariant size) {
         String fileName = transferService.getReceiptName(transferId);
-        String url = s3Service.generatePreSignedUrl(fileName, 10);
+        String url = s3Service.getReceiptUrl(fileName, size);
         return ResponseEntity.ok(url);
     }
 
@@ -0,0 +1,39 @@
+package com.saraf.service.transfer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a transfer listing ordered by {@code transferDate DESC, id DESC}. Clients only
+ * ever see the encoded form, so the key can change without breaking them.
+ */
+public record TransferCursor(LocalDateTime transferDate, Integer id) {
+
+    // Sorts after every real transfer, so the first page uses the same seek query as the rest.
+    static final TransferCursor FIRST = new TransferCursor(LocalDateTime.of(9999, 12, 31, 23, 59), Integer.MAX_VALUE);
+
+    private static final char SEPARATOR = '|';
+
+    public static TransferCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(SEPARATOR);
+            return new TransferCursor(
+                    LocalDateTime.parse(decoded.substring(0, separator)),
+                    Integer.valueOf(decoded.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = transferDate.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,8 @@
+package com.saraf.service.transfer;
+
+public enum TransferEventType {
+    CREATED,
+    STATUS_CHANGED,
+    RECEIPT_UPLOADED,
+    CANCELED
+}
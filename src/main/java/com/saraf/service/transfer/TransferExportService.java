@@ -0,0 +1,124 @@
+package com.saraf.service.transfer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes the admin transfer projection to the response in keyset-paginated chunks, so an
+ * export holds one chunk in memory whatever its size. Each chunk is read in its own short
+ * read-only transaction, and no connection is held while rows are written to a slow
+ * client. Chunks are not one snapshot: a transfer whose status changes mid-export may be
+ * missed or shown with its new status, but none is written twice.
+ */
+@Service
+@RequiredArgsConstructor
+public class TransferExportService {
+
+    private static final String CSV_HEADER = "id,amount,amountReceived,status,transferDate,recipientFullName," +
+            "recipientCCP,receipt,paymentMethod,code,firstName,lastName";
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59);
+    // Leading characters that make Excel and LibreOffice treat a cell as a formula
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    private final TransferRepository transferRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.transfer.export-chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * Streams transfers whose date falls within [from, to] (both inclusive, either may be
+     * null) and whose status is one of {@code statuses} (all statuses when empty).
+     */
+    public long export(ExportFormat format, LocalDate from, LocalDate to, Set<Status> statuses,
+                       OutputStream out) throws IOException {
+        LocalDateTime start = from == null ? EARLIEST : from.atStartOfDay();
+        LocalDateTime end = to == null ? LATEST : to.plusDays(1).atStartOfDay();
+        Set<Status> included = statuses == null || statuses.isEmpty() ? EnumSet.allOf(Status.class) : statuses;
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        ObjectWriter json = objectMapper.writerFor(TransferAdminDTO.class);
+        // Every id is above this, so the first chunk starts at the first transfer dated start
+        LocalDateTime afterDate = start;
+        Integer afterId = Integer.MIN_VALUE;
+        long rows = 0;
+        List<TransferAdminDTO> chunk;
+        do {
+            LocalDateTime cursorDate = afterDate;
+            Integer cursorId = afterId;
+            chunk = readOnly.execute(status -> transferRepository.findForAdminExportAfter(
+                    end, included, cursorDate, cursorId, PageRequest.of(0, chunkSize)));
+            for (TransferAdminDTO transfer : chunk) {
+                if (format == ExportFormat.CSV) {
+                    writeCsvRow(writer, transfer);
+                } else {
+                    writer.write(json.writeValueAsString(transfer));
+                    writer.write('\n');
+                }
+                rows++;
+            }
+            if (!chunk.isEmpty()) {
+                TransferAdminDTO last = chunk.get(chunk.size() - 1);
+                afterDate = last.getTransferDate();
+                afterId = last.getId();
+            }
+        } while (chunk.size() == chunkSize);
+        writer.flush();
+        return rows;
+    }
+
+    private void writeCsvRow(Writer writer, TransferAdminDTO t) throws IOException {
+        Object[] values = {
+                t.getId(), t.getAmount(), t.getAmountReceived(), t.getStatus(), t.getTransferDate(),
+                t.getRecipientFullName(), t.getRecipientCCP(), t.getReceipt(), t.getPaymentMethod(),
+                t.getCode(), t.getFirstName(), t.getLastName()
+        };
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvField(values[i]));
+        }
+        writer.write('\n');
+    }
+
+    static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (value instanceof CharSequence && !text.isEmpty() && FORMULA_PREFIXES.indexOf(text.charAt(0)) >= 0) {
+            // Names and codes are user input; a leading quote keeps spreadsheets from evaluating them as formulas
+            text = "'" + text;
+        }
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
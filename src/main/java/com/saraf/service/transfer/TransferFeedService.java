@@ -0,0 +1,173 @@
+package com.saraf.service.transfer;
+
+import com.saraf.service.sse.SseSubscriber;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live feed of {@link TransferLifecycleEvent}s for admin dashboards over Server-Sent Events.
+ * Events are taken after their transaction commits, numbered, kept in a bounded replay
+ * buffer and queued to every subscriber; the writes run on a small pool, see
+ * {@link SseSubscriber}. Numbering and queueing happen under one lock, and a new subscriber
+ * is registered under it too, so every client gets each event once and in order.
+ * <p>
+ * Event ids are {@code <boot id>-<sequence>}. A client reconnecting with a Last-Event-ID
+ * from this run, still inside the buffer, is sent what it missed. Any other id (an older
+ * run, another instance, or an event already evicted) gets a {@code reset} event, and the
+ * client reloads the pending list once.
+ * <p>
+ * The feed requires a single instance: events are only taken from transactions committed on
+ * this instance, and nothing is shared between instances. Behind several instances a
+ * dashboard misses changes written on the others until it next reloads, so the feed and
+ * every transfer write (user, admin and receipt upload endpoints) must be routed to the same
+ * instance.
+ */
+@Service
+@RequiredArgsConstructor
+public class TransferFeedService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransferFeedService.class);
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.transfer-feed.replay-size:500}")
+    private int replaySize;
+    @Value("${application.transfer-feed.timeout:1800000}")
+    private long timeout;
+    @Value("${application.transfer-feed.send-threads:2}")
+    private int sendThreads;
+    @Value("${application.transfer-feed.send-buffer:16}")
+    private int sendBuffer;
+
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+    // Guarded by replay
+    private final Deque<FeedEvent> replay = new ArrayDeque<>();
+    private final Set<SseSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private long sequence;
+    private ExecutorService sender;
+
+    @PostConstruct
+    void init() {
+        meterRegistry.gauge("transfer.feed.subscribers", subscribers, Set::size);
+        AtomicInteger threadNumber = new AtomicInteger();
+        sender = Executors.newFixedThreadPool(sendThreads, runnable -> {
+            Thread thread = new Thread(runnable, "transfer-feed-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        sender.shutdownNow();
+        subscribers.forEach(SseSubscriber::close);
+    }
+
+    /**
+     * @param lastEventId the Last-Event-ID header of a reconnecting client, or null
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        // Room for a full replay on top of the usual backlog
+        SseSubscriber subscriber = new SseSubscriber(new SseEmitter(timeout), replaySize + sendBuffer, sender, subscribers::remove);
+        synchronized (replay) {
+            if (lastEventId != null) {
+                List<FeedEvent> missed = missedSince(lastEventId);
+                if (missed == null) {
+                    subscriber.send(() -> SseEmitter.event().name("reset").data(""));
+                } else {
+                    missed.forEach(event -> subscriber.send(event::toSse));
+                }
+            }
+            subscribers.add(subscriber);
+        }
+        return subscriber.emitter();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransferEvent(TransferLifecycleEvent event) {
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            logger.error("Could not serialize transfer event for transfer {}", event.transfer().getId(), e);
+            return;
+        }
+        synchronized (replay) {
+            sequence++;
+            FeedEvent feedEvent = new FeedEvent(sequence, bootId + "-" + sequence, event.type(), data);
+            replay.addLast(feedEvent);
+            if (replay.size() > replaySize) {
+                replay.removeFirst();
+            }
+            subscribers.forEach(subscriber -> subscriber.send(feedEvent::toSse));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.transfer-feed.heartbeat-interval:15000}")
+    public void heartbeat() {
+        subscribers.forEach(subscriber -> subscriber.send(() -> SseEmitter.event().comment("heartbeat")));
+    }
+
+    // Events after the given id, or null when they can no longer be replayed
+    List<FeedEvent> missedSince(String lastEventId) {
+        int dash = lastEventId.lastIndexOf('-');
+        if (dash < 0 || !bootId.equals(lastEventId.substring(0, dash))) {
+            return null;
+        }
+        long last;
+        try {
+            last = Long.parseLong(lastEventId.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        synchronized (replay) {
+            if (last > sequence) {
+                return null;
+            }
+            long oldest = replay.isEmpty() ? sequence + 1 : replay.peekFirst().sequence();
+            if (last < oldest - 1) {
+                return null;
+            }
+            List<FeedEvent> missed = new ArrayList<>();
+            for (FeedEvent event : replay) {
+                if (event.sequence() > last) {
+                    missed.add(event);
+                }
+            }
+            return missed;
+        }
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    record FeedEvent(long sequence, String id, TransferEventType type, String data) {
+
+        SseEmitter.SseEventBuilder toSse() {
+            return SseEmitter.event().id(id).name(type.name()).data(data);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.saraf.service.transfer;
+
+import com.saraf.security.user.User;
+
+/**
+ * Published when a transfer is created or changes afterwards. The transfer is captured as
+ * a {@link TransferAdminDTO} at publish time, so listeners never touch the entity.
+ */
+public record TransferLifecycleEvent(TransferEventType type, TransferAdminDTO transfer) {
+
+    public static TransferLifecycleEvent of(TransferEventType type, Transfer transfer) {
+        User user = transfer.getUser();
+        return new TransferLifecycleEvent(type, TransferAdminDTO.of(transfer,
+                user == null ? null : user.getFirstname(),
+                user == null ? null : user.getLastname()));
+    }
+}
@@ -1,11 +1,24 @@
 package com.saraf.service.transfer;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TransferRepository extends JpaRepository<Transfer, Integer> {
@@ -33,13 +46,106 @@ public interface TransferRepository extends JpaRepository<Transfer, Integer> {
             "FROM Transfer t LEFT JOIN t.recipient r WHERE t.status IN (com.saraf.service.transfer.Status.PENDING) ORDER BY t.transferDate DESC")
     Page<TransferAdminDTO> findAllPendingForAdmin(Pageable pageable);
 
+    // Keyset variants of the listings above: they seek past (transferDate, id) instead of
+    // skipping rows, and return a Slice so no COUNT query is issued.
+
+    @Query("SELECT new com.saraf.service.transfer.TransferDTO(t.id, t.amount, t.amountReceived, t.status, t.transferDate, " +
+            "CASE WHEN r IS NULL THEN 'One Time Transfer' ELSE CONCAT(r.firstname, ' ', r.lastname) END, r.ccp, t.receipt, t.paymentMethod, t.code) " +
+            "FROM Transfer t LEFT JOIN t.recipient r WHERE t.user.id = :userId AND " +
+            "(t.transferDate < :transferDate OR (t.transferDate = :transferDate AND t.id < :id)) ORDER BY t.transferDate DESC, t.id DESC")
+    Slice<TransferDTO> findTransfersByUserIdAfter(@Param("userId") Integer userId,
+                                                  @Param("transferDate") LocalDateTime transferDate,
+                                                  @Param("id") Integer id,
+                                                  Pageable pageable);
+
+    @Query("SELECT new com.saraf.service.transfer.TransferDTO(t.id, t.amount, t.amountReceived, t.status, t.transferDate, " +
+            "CASE WHEN r IS NULL THEN 'One Time Transfer' ELSE CONCAT(r.firstname, ' ', r.lastname) END, r.ccp, t.receipt, t.paymentMethod, t.code) " +
+            "FROM Transfer t LEFT JOIN t.recipient r WHERE t.user.id = :userId " +
+            "AND t.status NOT IN (com.saraf.service.transfer.Status.CANCELED) AND " +
+            "(t.transferDate < :transferDate OR (t.transferDate = :transferDate AND t.id < :id)) ORDER BY t.transferDate DESC, t.id DESC")
+    Slice<TransferDTO> findAllNotCancelledAfter(@Param("userId") Integer userId,
+                                                @Param("transferDate") LocalDateTime transferDate,
+                                                @Param("id") Integer id,
+                                                Pageable pageable);
+
+    @Query("SELECT new com.saraf.service.transfer.TransferAdminDTO(t.id, t.amount, t.amountReceived, t.status, t.transferDate, " +
+            "CASE WHEN r IS NULL THEN 'One Time Transfer' ELSE CONCAT(r.firstname, ' ', r.lastname) END," +
+            "r.ccp, t.receipt, t.paymentMethod, t.code, t.user.firstname, t.user.lastname) " +
+            "FROM Transfer t LEFT JOIN t.recipient r WHERE " +
+            "(t.transferDate < :transferDate OR (t.transferDate = :transferDate AND t.id < :id)) ORDER BY t.transferDate DESC, t.id DESC")
+    Slice<TransferAdminDTO> findAllForAdminAfter(@Param("transferDate") LocalDateTime transferDate,
+                                                 @Param("id") Integer id,
+                                                 Pageable pageable);
+
+    @Query("SELECT new com.saraf.service.transfer.TransferAdminDTO(t.id, t.amount, t.amountReceived, t.status, t.transferDate, " +
+            "CASE WHEN r IS NULL THEN 'One Time Transfer' ELSE CONCAT(r.firstname, ' ', r.lastname) END," +
+            "r.ccp, t.receipt, t.paymentMethod, t.code, t.user.firstname, t.user.lastname) " +
+            "FROM Transfer t LEFT JOIN t.recipient r WHERE t.status IN (com.saraf.service.transfer.Status.PENDING) AND " +
+            "(t.transferDate < :transferDate OR (t.transferDate = :transferDate AND t.id < :id)) ORDER BY t.transferDate DESC, t.id DESC")
+    Slice<TransferAdminDTO> findAllPendingForAdminAfter(@Param("transferDate") LocalDateTime transferDate,
+                                                        @Param("id") Integer id,
+                                                        Pageable pageable);
+
+    // One chunk of an export, in export order: rows before :end after the (transferDate, id) cursor
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT new com.saraf.service.transfer.TransferAdminDTO(t.id, t.amount, t.amountReceived, t.status, t.transferDate, " +
+            "CASE WHEN r IS NULL THEN 'One Time Transfer' ELSE CONCAT(r.firstname, ' ', r.lastname) END, " +
+            "r.ccp, t.receipt, t.paymentMethod, t.code, t.user.firstname, t.user.lastname) " +
+            "FROM Transfer t LEFT JOIN t.recipient r " +
+            "WHERE t.transferDate < :end AND t.status IN :statuses AND " +
+            "(t.transferDate > :transferDate OR (t.transferDate = :transferDate AND t.id > :id)) " +
+            "ORDER BY t.transferDate, t.id")
+    List<TransferAdminDTO> findForAdminExportAfter(@Param("end") LocalDateTime end,
+                                                   @Param("statuses") Collection<Status> statuses,
+                                                   @Param("transferDate") LocalDateTime transferDate,
+                                                   @Param("id") Integer id,
+                                                   Pageable pageable);
+
     @Query("SELECT new com.saraf.service.transfer.TransferAdminDTO(t.id, t.amount, t.amountReceived, t.status, t.transferDate, " +
             "CASE WHEN r IS NULL THEN 'One Time Transfer' ELSE CONCAT(r.firstname, ' ', r.lastname) END, " +
             "r.ccp, t.receipt, t.paymentMethod, t.code, t.user.firstname, t.user.lastname) " +
             "FROM Transfer t LEFT JOIN t.recipient r WHERE t.id = :transferId")
     TransferAdminDTO findTransferById(Integer transferId);
 
+    @Query("SELECT new com.saraf.service.transfer.TransferAdminDTO(t.id, t.amount, t.amountReceived, t.status, t.transferDate, " +
+            "CASE WHEN r IS NULL THEN 'One Time Transfer' ELSE CONCAT(r.firstname, ' ', r.lastname) END, " +
+            "r.ccp, t.receipt, t.paymentMethod, t.code, t.user.firstname, t.user.lastname) " +
+            "FROM Transfer t LEFT JOIN t.recipient r WHERE t.id IN :transferIds")
+    List<TransferAdminDTO> findTransfersByIdIn(@Param("transferIds") Collection<Integer> transferIds);
+
+    // Holds the row until commit, so a status change is never based on a status another transaction is replacing
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transfer t WHERE t.id = :id")
+    Optional<Transfer> findByIdForUpdate(@Param("id") Integer id);
+
+    // Locks only transfer rows, in id order so that overlapping bulk updates queue up instead of deadlocking
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t.id FROM Transfer t WHERE t.id IN :transferIds ORDER BY t.id")
+    List<Integer> lockByIdIn(@Param("transferIds") Collection<Integer> transferIds);
+
+    @Query("SELECT new com.saraf.service.transfer.TransferStatusView(t.id, t.status, u.firstname, u.email) " +
+            "FROM Transfer t JOIN t.user u WHERE t.id IN :transferIds")
+    List<TransferStatusView> findStatusViewsByIdIn(@Param("transferIds") Collection<Integer> transferIds);
+
+    // Only rows still in the expected status change, so a concurrent update is never overwritten
+    @Modifying
+    @Query("UPDATE Transfer t SET t.status = :target WHERE t.id IN :transferIds AND t.status = :expected")
+    int updateStatusWhereCurrent(@Param("transferIds") Collection<Integer> transferIds,
+                                 @Param("expected") Status expected,
+                                 @Param("target") Status target);
+
     @Query("SELECT t.user.phoneNumber FROM Transfer t WHERE t.id = :transferId")
     String findUserPhoneNumberByTransferId(@Param("transferId") Integer transferId);
 
+    @Query("SELECT t.receipt FROM Transfer t WHERE t.id = :transferId")
+    Optional<String> findReceiptByTransferId(@Param("transferId") Integer transferId);
+
+    @Query("SELECT t.user.id FROM Transfer t WHERE t.id = :transferId")
+    Optional<Integer> findUserIdByTransferId(@Param("transferId") Integer transferId);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Transfer t SET t.receipt = :receipt WHERE t.id = :transferId")
+    int updateReceipt(@Param("transferId") Integer transferId, @Param("receipt") String receipt);
+
 }
@@ -2,10 +2,13 @@ package com.saraf.service.transfer;
 
 import com.saraf.security.exception.TransferNotFoundException;
 import com.saraf.security.exception.TransferNotPendingException;
+import com.saraf.security.user.AuthenticatedUser;
 import com.saraf.security.user.User;
 import com.saraf.security.user.UserRepository;
-import com.saraf.service.rate.ExchangeRate;
-import com.saraf.service.rate.ExchangeRateRepository;
+import com.saraf.service.outbox.OutboxEventType;
+import com.saraf.service.outbox.OutboxService;
+import com.saraf.service.outbox.StatusUpdatePayload;
+import com.saraf.service.rate.ExchangeRateService;
 import com.saraf.service.recipient.Recipient;
 import com.saraf.service.recipient.RecipientRepository;
 import com.saraf.service.recipient.RecipientService;
@@ -16,17 +19,25 @@ import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -35,21 +46,31 @@ public class TransferService {
     private final TransferRepository transferRepository;
     private final UserRepository userRepository;
     private final RecipientRepository recipientRepository;
-    private final ExchangeRateRepository rateRepository;
+    private final ExchangeRateService exchangeRateService;
     private final AuditorAware<Integer> auditorAware;
     private final RecipientService recipientService;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @Value("${application.transfer.bulk-update-max-size:500}")
+    private int bulkUpdateMaxSize;
+
+    /**
+     * Creates a transfer for the current user. The user is attached as a reference and the
+     * notification is built from memory, so the common case costs one recipient lookup and
+     * the transfer insert.
+     */
+    @Transactional
     public Transfer addTransfer(TransferRequest request) {
-        var user = userRepository.findById(getCurrentUser())
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        Integer userId = getCurrentUser();
+        User user = userRepository.getReferenceById(userId);
 
-        Recipient recipient =  recipientRepository.findByUserIdAndAndCcp(getCurrentUser(), request.getCcp());
+        Recipient recipient = recipientRepository.findByUserIdAndAndCcp(userId, request.getCcp());
         if (recipient == null) {
-            recipientService.addOneTimeRecipient(request.getCcp(), user);
+            recipient = recipientService.addOneTimeRecipient(request.getCcp(), user);
         }
 
-        ExchangeRate rate = rateRepository.findTopByOrderByIdDesc();
-        double DZDtoUSD = rate.getCurrentRate();
+        double DZDtoUSD = exchangeRateService.getCurrentRate();
 
         Transfer transfer = Transfer.builder()
                 .amount(request.getAmount())
@@ -59,10 +80,27 @@ public class TransferService {
                 .paymentMethod(request.getPaymentMethod())
                 .code(request.getCode())
                 .user(user)
-                .recipient(recipientRepository.findByUserIdAndAndCcp(getCurrentUser(), request.getCcp()))
+                .recipient(recipient)
                 .build();
 
-        return transferRepository.save(transfer);
+        Transfer saved = transferRepository.save(transfer);
+        // The cached principal already carries the names, which spares loading the user row.
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        TransferAdminDTO notification = authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser principal
+                ? toAdminDTO(saved, principal.getFirstname(), principal.getLastname())
+                : toAdminDTO(saved);
+        outboxService.record(OutboxEventType.TRANSFER_CREATED, notification);
+        eventPublisher.publishEvent(new TransferLifecycleEvent(TransferEventType.CREATED, notification));
+        return saved;
+    }
+
+    TransferAdminDTO toAdminDTO(Transfer transfer) {
+        User user = transfer.getUser();
+        return toAdminDTO(transfer, user.getFirstname(), user.getLastname());
+    }
+
+    TransferAdminDTO toAdminDTO(Transfer transfer, String firstName, String lastName) {
+        return TransferAdminDTO.of(transfer, firstName, lastName);
     }
 
     public Page<TransferDTO> getTransfersForUser(int page, int size) {
@@ -77,6 +115,7 @@ public class TransferService {
         return transferRepository.findAllNotCancelled(userId, pageable);
     }
 
+    @Transactional(readOnly = true)
     @PreAuthorize("hasRole('ADMIN')")
     public Page<TransferAdminDTO> getTransfersForAdmin(int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
@@ -87,40 +126,168 @@ public class TransferService {
         return transferRepository.findTransferById(transferId);
     }
 
+    @Transactional(readOnly = true)
     public Page<TransferAdminDTO> getPendingTransfersForAdmin(int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
         return transferRepository.findAllPendingForAdmin(pageable);
     }
 
+    public CursorPage<TransferDTO> scrollTransfersForUser(String cursor, int size) {
+        Integer userId = getCurrentUser();
+        TransferCursor after = TransferCursor.decode(cursor);
+        Slice<TransferDTO> slice = transferRepository.findTransfersByUserIdAfter(
+                userId, after.transferDate(), after.id(), PageRequest.of(0, size));
+        return toCursorPage(slice, dto -> new TransferCursor(dto.getTransferDate(), dto.getId()));
+    }
+
+    public CursorPage<TransferDTO> scrollNonCancelledTransfersForUser(String cursor, int size) {
+        Integer userId = getCurrentUser();
+        TransferCursor after = TransferCursor.decode(cursor);
+        Slice<TransferDTO> slice = transferRepository.findAllNotCancelledAfter(
+                userId, after.transferDate(), after.id(), PageRequest.of(0, size));
+        return toCursorPage(slice, dto -> new TransferCursor(dto.getTransferDate(), dto.getId()));
+    }
+
+    @Transactional(readOnly = true)
+    @PreAuthorize("hasRole('ADMIN')")
+    public CursorPage<TransferAdminDTO> scrollTransfersForAdmin(String cursor, int size) {
+        TransferCursor after = TransferCursor.decode(cursor);
+        Slice<TransferAdminDTO> slice = transferRepository.findAllForAdminAfter(
+                after.transferDate(), after.id(), PageRequest.of(0, size));
+        return toCursorPage(slice, dto -> new TransferCursor(dto.getTransferDate(), dto.getId()));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<TransferAdminDTO> scrollPendingTransfersForAdmin(String cursor, int size) {
+        TransferCursor after = TransferCursor.decode(cursor);
+        Slice<TransferAdminDTO> slice = transferRepository.findAllPendingForAdminAfter(
+                after.transferDate(), after.id(), PageRequest.of(0, size));
+        return toCursorPage(slice, dto -> new TransferCursor(dto.getTransferDate(), dto.getId()));
+    }
+
+    private <T> CursorPage<T> toCursorPage(Slice<T> slice, Function<T, TransferCursor> cursorOf) {
+        List<T> content = slice.getContent();
+        String nextCursor = slice.hasNext() && !content.isEmpty()
+                ? cursorOf.apply(content.get(content.size() - 1)).encode()
+                : null;
+        return new CursorPage<>(content, nextCursor, nextCursor != null);
+    }
+
     Integer getCurrentUser() {
         return auditorAware.getCurrentAuditor()
                 .orElseThrow(() -> new UsernameNotFoundException("User not authenticated"));
     }
 
+    @Transactional
     public Transfer updateStatus(Integer id, Status status) {
-        Transfer transfer = transferRepository.findById(id)
+        // Locked like the bulk update, so a cancel or bulk change cannot land between this read and the write
+        Transfer transfer = transferRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new TransferNotFoundException("Transfer not found"));
 
         transfer.setStatus(status);
+        User user = transfer.getUser();
+        outboxService.record(OutboxEventType.TRANSFER_STATUS_CHANGED,
+                new StatusUpdatePayload(transfer.getId(), user.getFirstname(), user.getEmail(), status));
+        eventPublisher.publishEvent(TransferLifecycleEvent.of(TransferEventType.STATUS_CHANGED, transfer));
         return transferRepository.save(transfer);
     }
 
+    @Transactional
     public Transfer cancelTransfer(Integer id) {
+        // Guarded on PENDING, so a transfer an admin moved on in the meantime is never overwritten
+        int canceled = transferRepository.updateStatusWhereCurrent(List.of(id), Status.PENDING, Status.CANCELED);
         Transfer transfer = transferRepository.findById(id)
                 .orElseThrow(() -> new TransferNotFoundException("Transfer not found"));
 
-        if (transfer.getStatus() != Status.PENDING)
+        if (canceled == 0)
             throw new TransferNotPendingException("Cannot cancel transfer");
 
+        eventPublisher.publishEvent(TransferLifecycleEvent.of(TransferEventType.CANCELED, transfer));
+        return transfer;
+    }
 
-        transfer.setStatus(Status.CANCELED);
-        return transferRepository.save(transfer);
+    /**
+     * Applies many status changes in one transaction. The transfers are locked and their
+     * current statuses read with one query each, then every group of transfers moving from
+     * the same status to the same status is changed with one UPDATE guarded on that current
+     * status. A transfer whose current status does not allow the change is reported as a
+     * conflict instead of being overwritten.
+     * Status emails are recorded in the outbox like single updates, and the relay sends them
+     * in batches once the transaction commits.
+     *
+     * @return one result per requested change, in request order
+     */
+    @Transactional
+    public List<StatusUpdateResult> updateStatuses(List<UpdateTransferStatusDTO> updates) {
+        if (updates.size() > bulkUpdateMaxSize) {
+            throw new IllegalArgumentException("At most " + bulkUpdateMaxSize + " status updates per request");
+        }
+        Map<Integer, UpdateTransferStatusDTO> updatesById = new LinkedHashMap<>();
+        for (UpdateTransferStatusDTO update : updates) {
+            if (update.getId() == null || update.getStatus() == null) {
+                throw new IllegalArgumentException("Every status update needs an id and a status");
+            }
+            if (updatesById.putIfAbsent(update.getId(), update) != null) {
+                throw new IllegalArgumentException("Transfer " + update.getId() + " appears more than once");
+            }
+        }
+        if (updatesById.isEmpty()) {
+            return List.of();
+        }
+
+        // Held until commit, so no row can change between this read and the guarded UPDATEs below
+        transferRepository.lockByIdIn(updatesById.keySet());
+        Map<Integer, TransferStatusView> current = transferRepository.findStatusViewsByIdIn(updatesById.keySet()).stream()
+                .collect(Collectors.toMap(TransferStatusView::id, Function.identity()));
+        Map<Integer, StatusUpdateResult> results = new HashMap<>();
+        Map<StatusTransition, List<Integer>> transitions = new LinkedHashMap<>();
+        for (UpdateTransferStatusDTO update : updatesById.values()) {
+            TransferStatusView view = current.get(update.getId());
+            if (view == null) {
+                results.put(update.getId(), new StatusUpdateResult(update.getId(), null, StatusUpdateResult.Outcome.NOT_FOUND));
+                continue;
+            }
+            Status expected = update.getExpectedStatus() != null ? update.getExpectedStatus() : view.status();
+            if (view.status() != expected) {
+                results.put(view.id(), new StatusUpdateResult(view.id(), view.status(), StatusUpdateResult.Outcome.CONFLICT));
+            } else if (view.status() == update.getStatus()) {
+                results.put(view.id(), new StatusUpdateResult(view.id(), view.status(), StatusUpdateResult.Outcome.UNCHANGED));
+            } else {
+                transitions.computeIfAbsent(new StatusTransition(expected, update.getStatus()), key -> new ArrayList<>())
+                        .add(view.id());
+            }
+        }
+
+        List<Integer> updatedIds = new ArrayList<>();
+        transitions.forEach((transition, ids) -> {
+            int updated = transferRepository.updateStatusWhereCurrent(ids, transition.from(), transition.to());
+            if (updated != ids.size()) {
+                // Cannot happen while the rows are locked; rolling back beats emailing about the wrong rows
+                throw new IllegalStateException("Expected to move " + ids.size() + " transfers from "
+                        + transition.from() + " to " + transition.to() + " but moved " + updated);
+            }
+            ids.forEach(id -> results.put(id, new StatusUpdateResult(id, transition.to(), StatusUpdateResult.Outcome.UPDATED)));
+            updatedIds.addAll(ids);
+        });
+
+        for (Integer id : updatedIds) {
+            TransferStatusView view = current.get(id);
+            outboxService.record(OutboxEventType.TRANSFER_STATUS_CHANGED,
+                    new StatusUpdatePayload(id, view.firstname(), view.email(), results.get(id).status()));
+        }
+        if (!updatedIds.isEmpty()) {
+            transferRepository.findTransfersByIdIn(updatedIds).forEach(transfer ->
+                    eventPublisher.publishEvent(new TransferLifecycleEvent(TransferEventType.STATUS_CHANGED, transfer)));
+        }
+        return updatesById.keySet().stream().map(results::get).toList();
+    }
+
+    private record StatusTransition(Status from, Status to) {
     }
 
     public String getReceiptName(Integer id) {
-        Transfer transfer = transferRepository.findById(id)
-                .orElseThrow(() -> new TransferNotFoundException("Transfer not found"));
-        return transfer.getReceipt();
+        return transferRepository.findReceiptByTransferId(id)
+                .orElseThrow(() -> new TransferNotFoundException("Receipt not found"));
     }
 
     public String getUserPhoneNumberByTransferId(Integer transferId) {
@@ -0,0 +1,8 @@
+package com.saraf.service.transfer;
+
+/**
+ * The current status of a transfer with what its status email needs, read in bulk
+ * before a batch of status changes.
+ */
+public record TransferStatusView(Integer id, Status status, String firstname, String email) {
+}
@@ -6,4 +6,6 @@ import lombok.Data;
 public class UpdateTransferStatusDTO {
     private Integer id;
     private Status status;
+    // Optional guard for bulk updates: the change only applies while the transfer is still in this status
+    private Status expectedStatus;
 }
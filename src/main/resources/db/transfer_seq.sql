@@ -0,0 +1,9 @@
+-- Transfer ids come from transfer_seq through Hibernate's pooled optimizer, 50 at a time.
+-- The optimizer takes any first value other than 1001 as the top of a block and hands
+-- out the 49 ids below it, so the sequence starts a whole block past the existing ids.
+--
+-- Run it once, after the last instance that takes ids from hibernate_sequences has
+-- stopped and before the first one using transfer_seq starts. Run again on a live
+-- system, it could move the sequence back under blocks that instances still hold.
+CREATE SEQUENCE IF NOT EXISTS transfer_seq START WITH 1001 INCREMENT BY 50;
+SELECT setval('transfer_seq', GREATEST((SELECT max(id) FROM transfer) + 50, 1051), false);
@@ -23,9 +23,11 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -85,11 +87,9 @@ class AdminControllerTest {
     @Test
     @WithMockUser(roles = "ADMIN")
     void uploadReceipt_Success() throws Exception {
-        Transfer transfer = new Transfer();
-        transfer.setReceipt("receiptUrl");
         MockMultipartFile receipt = new MockMultipartFile("receipt", "receipt.jpg", MediaType.IMAGE_JPEG_VALUE, "receipt content".getBytes());
 
-        when(s3Service.saveReceipt(anyInt(), any())).thenReturn(transfer);
+        when(s3Service.saveReceipt(anyInt(), any())).thenReturn("receiptUrl");
 
         mockMvc.perform(multipart("/api/v1/admin/upload-receipt/1")
                         .file(receipt))
@@ -140,8 +140,6 @@ class AdminControllerTest {
 
         when(transferService.updateStatus(anyInt(), any())).thenReturn(transfer);
 
-        doNothing().when(emailService).sendStatusUpdateEmail(anyString(), anyString(), any(Status.class));
-
         mockMvc.perform(patch("/api/v1/admin/update-status")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{ \"id\": 1, \"status\": \"RECEIVED\" }")
@@ -150,6 +148,24 @@ class AdminControllerTest {
                 .andExpect(jsonPath("$.status").value("RECEIVED"));
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void updateStatuses_ReturnsPerItemResults() throws Exception {
+        when(transferService.updateStatuses(anyList())).thenReturn(List.of(
+                new StatusUpdateResult(1, Status.RECEIVED, StatusUpdateResult.Outcome.UPDATED),
+                new StatusUpdateResult(2, Status.CANCELED, StatusUpdateResult.Outcome.CONFLICT)));
+
+        mockMvc.perform(patch("/api/v1/admin/update-status/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{ \"id\": 1, \"status\": \"RECEIVED\" }, " +
+                                "{ \"id\": 2, \"status\": \"RECEIVED\", \"expectedStatus\": \"PROCESSING\" }]")
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].outcome").value("UPDATED"))
+                .andExpect(jsonPath("$[1].outcome").value("CONFLICT"))
+                .andExpect(jsonPath("$[1].status").value("CANCELED"));
+    }
+
     @Test
     @WithMockUser(username = "admin", authorities = {"admin:update"})
     void putRole_Success() throws Exception {
@@ -182,4 +198,21 @@ class AdminControllerTest {
                 .andExpect(jsonPath("$.message").value("User with ID 1 not found"));
     }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    void metrics_ForbiddenToUsers() throws Exception {
+        mockMvc.perform(get("/actuator/metrics"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics/hikaricp.connections.active"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void metrics_AllowedToAdmins() throws Exception {
+        // The test profile does not expose the endpoint, so an allowed request ends in a 404
+        mockMvc.perform(get("/actuator/metrics"))
+                .andExpect(status().isNotFound());
+    }
+
 }
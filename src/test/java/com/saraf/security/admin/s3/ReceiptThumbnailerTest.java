@@ -0,0 +1,126 @@
+package com.saraf.security.admin.s3;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReceiptThumbnailerTest {
+
+    @Mock
+    private AmazonS3 amazonS3;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ReceiptThumbnailer thumbnailer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        thumbnailer = new ReceiptThumbnailer(amazonS3, meterRegistry);
+        ReflectionTestUtils.setField(thumbnailer, "bucketName", "saraf-brk");
+        ReflectionTestUtils.setField(thumbnailer, "workers", 1);
+        ReflectionTestUtils.setField(thumbnailer, "queueCapacity", 1);
+        ReflectionTestUtils.setField(thumbnailer, "previewSize", 1280);
+        ReflectionTestUtils.setField(thumbnailer, "thumbnailSize", 320);
+        ReflectionTestUtils.setField(thumbnailer, "quality", 0.75f);
+        thumbnailer.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        thumbnailer.stop();
+    }
+
+    @Test
+    void generate_StoresPreviewAndThumbnailNextToOriginal() throws Exception {
+        S3Object original = new S3Object();
+        original.setObjectContent(png(2000, 1000));
+        when(amazonS3.getObject("saraf-brk", "receipt/2/receipt_1.png")).thenReturn(original);
+
+        thumbnailer.generate("receipt/2/receipt_1.png");
+
+        assertImage("receipt/2/preview/receipt_1.jpg", 1280, 640);
+        assertImage("receipt/2/thumbnail/receipt_1.jpg", 320, 160);
+        assertEquals(1, meterRegistry.get("receipts.variants.generated").counter().count());
+    }
+
+    @Test
+    void generate_CountsUnreadableImage() throws Exception {
+        S3Object original = new S3Object();
+        original.setObjectContent(new ByteArrayInputStream("not an image".getBytes()));
+        when(amazonS3.getObject("saraf-brk", "receipt/2/receipt_1.png")).thenReturn(original);
+
+        thumbnailer.generate("receipt/2/receipt_1.png");
+
+        verify(amazonS3, never()).putObject(anyString(), anyString(), any(InputStream.class), any(ObjectMetadata.class));
+        assertEquals(1, meterRegistry.get("receipts.variants.failed").counter().count());
+    }
+
+    @Test
+    void submit_SkipsFormatsImageIoCannotRead() {
+        thumbnailer.submit("receipt/2/scan.pdf");
+
+        assertFalse(thumbnailer.producesVariants("receipt/2/scan.pdf"));
+        assertTrue(thumbnailer.producesVariants("receipt/2/photo.JPG"));
+        verifyNoInteractions(amazonS3);
+    }
+
+    @Test
+    void exifOrientation_ReadsTagFromFirstIfd() {
+        assertEquals(6, ReceiptThumbnailer.exifOrientation(exif(6, true)));
+        assertEquals(8, ReceiptThumbnailer.exifOrientation(exif(8, false)));
+        assertEquals(0, ReceiptThumbnailer.exifOrientation("Exif".getBytes()));
+    }
+
+    private void assertImage(String key, int width, int height) throws Exception {
+        ArgumentCaptor<InputStream> content = ArgumentCaptor.forClass(InputStream.class);
+        ArgumentCaptor<ObjectMetadata> metadata = ArgumentCaptor.forClass(ObjectMetadata.class);
+        verify(amazonS3).putObject(eq("saraf-brk"), eq(key), content.capture(), metadata.capture());
+        BufferedImage image = ImageIO.read(content.getValue());
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+        assertEquals("image/jpeg", metadata.getValue().getContentType());
+    }
+
+    private static InputStream png(int width, int height) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png", bytes);
+        return new ByteArrayInputStream(bytes.toByteArray());
+    }
+
+    // "Exif\0\0" followed by a TIFF header and a one-entry IFD holding the orientation tag
+    private static byte[] exif(int orientation, boolean littleEndian) {
+        ByteBuffer buffer = ByteBuffer.allocate(6 + 8 + 2 + 12 + 4);
+        buffer.put("Exif".getBytes()).put((byte) 0).put((byte) 0);
+        buffer.order(littleEndian ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        buffer.put(littleEndian ? (byte) 'I' : (byte) 'M').put(littleEndian ? (byte) 'I' : (byte) 'M');
+        buffer.putShort((short) 42).putInt(8);
+        buffer.putShort((short) 1);
+        buffer.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        buffer.putInt(0);
+        return buffer.array();
+    }
+}
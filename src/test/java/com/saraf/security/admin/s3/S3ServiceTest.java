@@ -1,26 +1,45 @@
 package com.saraf.security.admin.s3;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.HttpMethod;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
 import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
 import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
+import com.amazonaws.services.s3.transfer.Upload;
 import com.saraf.security.exception.TransferNotFoundException;
-import com.saraf.service.transfer.Transfer;
+import com.saraf.service.transfer.TransferAdminDTO;
+import com.saraf.service.transfer.TransferEventType;
+import com.saraf.service.transfer.TransferLifecycleEvent;
 import com.saraf.service.transfer.TransferRepository;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.IOException;
 import java.net.URL;
 import java.util.Date;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.*;
 
 class S3ServiceTest {
@@ -28,54 +47,131 @@ class S3ServiceTest {
     @Mock
     private AmazonS3 amazonS3;
 
+    @Mock
+    private TransferManager receiptTransferManager;
+
     @Mock
     private TransferRepository transferRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ReceiptThumbnailer receiptThumbnailer;
+
     @InjectMocks
     private S3Service s3Service;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(s3Service, "bucketName", "saraf-brk");
+        ReflectionTestUtils.setField(s3Service, "urlExpiryMinutes", 10);
+        ReflectionTestUtils.setField(s3Service, "urlRefreshAhead", 120_000L);
+        ReflectionTestUtils.setField(s3Service, "urlCacheSize", 100);
+        s3Service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3Service.shutdown();
     }
 
     @Test
     void saveReceipt_Success() throws Exception {
-        // Setup mock transfer entity
-        Transfer transfer = new Transfer();
-        transfer.setId(1);
-        transfer.setUser(new com.saraf.security.user.User());
-        transfer.getUser().setId(2);
-
-        // Setup mock file
         MockMultipartFile receipt = new MockMultipartFile("receipt", "receipt.jpg", "image/jpeg", "test content".getBytes());
+        Upload upload = mock(Upload.class);
+        when(transferRepository.findUserIdByTransferId(1)).thenReturn(Optional.of(2));
+        when(receiptTransferManager.upload(any(PutObjectRequest.class))).thenReturn(upload);
+        when(transferRepository.updateReceipt(eq(1), anyString())).thenReturn(1);
+        when(transferRepository.findTransferById(1)).thenReturn(TransferAdminDTO.builder().id(1).build());
 
-        // Mock repository and S3 interactions
-        when(transferRepository.findById(1)).thenReturn(Optional.of(transfer));
-        when(transferRepository.save(any(Transfer.class))).thenReturn(transfer);
+        String key = s3Service.saveReceipt(1, receipt);
 
-        // Call the method
-        Transfer result = s3Service.saveReceipt(1, receipt);
+        ArgumentCaptor<PutObjectRequest> request = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(receiptTransferManager).upload(request.capture());
+        verify(upload).waitForUploadResult();
+        assertTrue(key.startsWith("receipt/2/receipt_"));
+        assertEquals(key, request.getValue().getKey());
+        assertEquals("saraf-brk", request.getValue().getBucketName());
+        assertEquals(12, request.getValue().getMetadata().getContentLength());
+        assertEquals("image/jpeg", request.getValue().getMetadata().getContentType());
+        verify(transferRepository).updateReceipt(1, key);
+        verify(transferRepository, never()).findById(anyInt());
+        verify(eventPublisher).publishEvent(argThat((TransferLifecycleEvent event) ->
+                event.type() == TransferEventType.RECEIPT_UPLOADED && event.transfer().getId() == 1));
+        verify(receiptThumbnailer).submit(key);
+    }
 
-        // Verify interactions and assertions
-        verify(amazonS3, times(1)).putObject(any(PutObjectRequest.class));
-        assertNotNull(result.getReceipt());
-        assertTrue(result.getReceipt().contains("receipt/2/receipt_"));
+    @Test
+    void saveReceipt_UploadsLargeReceiptsInParts() throws Exception {
+        TransferManager transferManager = TransferManagerBuilder.standard()
+                .withS3Client(amazonS3)
+                .withMultipartUploadThreshold(1024L)
+                .withMinimumUploadPartSize(1024L)
+                .build();
+        S3Service service = new S3Service(amazonS3, transferManager, transferRepository, eventPublisher, receiptThumbnailer);
+        ReflectionTestUtils.setField(service, "bucketName", "saraf-brk");
+        MockMultipartFile receipt = new MockMultipartFile("receipt", "scan.pdf", "application/pdf", new byte[3000]);
+        InitiateMultipartUploadResult initiated = new InitiateMultipartUploadResult();
+        initiated.setUploadId("upload-1");
+        when(transferRepository.findUserIdByTransferId(1)).thenReturn(Optional.of(2));
+        when(transferRepository.updateReceipt(eq(1), anyString())).thenReturn(1);
+        when(amazonS3.initiateMultipartUpload(any())).thenReturn(initiated);
+        when(amazonS3.uploadPart(any())).thenAnswer(invocation -> {
+            UploadPartResult result = new UploadPartResult();
+            result.setPartNumber(invocation.<UploadPartRequest>getArgument(0).getPartNumber());
+            result.setETag("etag");
+            return result;
+        });
+        when(amazonS3.completeMultipartUpload(any())).thenReturn(new CompleteMultipartUploadResult());
+
+        try {
+            service.saveReceipt(1, receipt);
+        } finally {
+            transferManager.shutdownNow(false);
+        }
+
+        verify(amazonS3, times(3)).uploadPart(any());
+        verify(amazonS3).completeMultipartUpload(any());
+        verify(amazonS3, never()).putObject(any(PutObjectRequest.class));
     }
 
     @Test
     void saveReceipt_TransferNotFound() {
-        // Setup mock file
         MockMultipartFile receipt = new MockMultipartFile("receipt", "receipt.jpg", "image/jpeg", "test content".getBytes());
+        when(transferRepository.findUserIdByTransferId(anyInt())).thenReturn(Optional.empty());
 
-        // Mock repository to throw TransferNotFoundException
-        when(transferRepository.findById(anyInt())).thenThrow(new TransferNotFoundException("Transfer not found"));
-
-        // Test method and expect exception
         assertThrows(TransferNotFoundException.class, () -> s3Service.saveReceipt(1, receipt));
 
         // Verify that no interaction with S3 occurred
-        verify(amazonS3, never()).putObject(any(PutObjectRequest.class));
+        verifyNoInteractions(receiptTransferManager);
+    }
+
+    @Test
+    void saveReceipt_RemovesUploadWhenTransferIsGone() throws Exception {
+        MockMultipartFile receipt = new MockMultipartFile("receipt", "receipt.jpg", "image/jpeg", "test content".getBytes());
+        when(transferRepository.findUserIdByTransferId(1)).thenReturn(Optional.of(2));
+        when(receiptTransferManager.upload(any(PutObjectRequest.class))).thenReturn(mock(Upload.class));
+        when(transferRepository.updateReceipt(eq(1), anyString())).thenReturn(0);
+
+        assertThrows(TransferNotFoundException.class, () -> s3Service.saveReceipt(1, receipt));
+
+        verify(amazonS3).deleteObject(eq("saraf-brk"), startsWith("receipt/2/"));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void saveReceipt_WrapsUploadFailure() throws Exception {
+        MockMultipartFile receipt = new MockMultipartFile("receipt", "receipt.jpg", "image/jpeg", "test content".getBytes());
+        Upload upload = mock(Upload.class);
+        when(transferRepository.findUserIdByTransferId(1)).thenReturn(Optional.of(2));
+        when(receiptTransferManager.upload(any(PutObjectRequest.class))).thenReturn(upload);
+        when(upload.waitForUploadResult()).thenThrow(new AmazonClientException("connection reset"));
+
+        assertThrows(IOException.class, () -> s3Service.saveReceipt(1, receipt));
+
+        verify(transferRepository, never()).updateReceipt(anyInt(), anyString());
     }
 
     @Test
@@ -106,4 +202,72 @@ class S3ServiceTest {
         assertEquals(fileName, requestCaptured.getKey());
         assertTrue(Math.abs(requestCaptured.getExpiration().getTime() - expectedExpiration.getTime()) < 1000);
     }
+
+    @Test
+    void getReceiptUrl_SignsOnceWhileCached() throws Exception {
+        when(amazonS3.generatePresignedUrl(any(GeneratePresignedUrlRequest.class))).thenReturn(new URL("https://s3.test/receipt/1"));
+
+        assertEquals("https://s3.test/receipt/1", s3Service.getReceiptUrl("receipt/1"));
+        assertEquals("https://s3.test/receipt/1", s3Service.getReceiptUrl("receipt/1"));
+
+        verify(amazonS3, times(1)).generatePresignedUrl(any(GeneratePresignedUrlRequest.class));
+    }
+
+    @Test
+    void getReceiptUrl_ResignsRetiredUrl() throws Exception {
+        // A one-minute link is retired as soon as it is signed
+        ReflectionTestUtils.setField(s3Service, "urlExpiryMinutes", 1);
+        when(amazonS3.generatePresignedUrl(any(GeneratePresignedUrlRequest.class)))
+                .thenReturn(new URL("https://s3.test/first"), new URL("https://s3.test/second"));
+
+        s3Service.getReceiptUrl("receipt/1");
+
+        assertEquals("https://s3.test/second", s3Service.getReceiptUrl("receipt/1"));
+        verify(amazonS3, times(2)).generatePresignedUrl(any(GeneratePresignedUrlRequest.class));
+    }
+
+    @Test
+    void getReceiptUrl_RefreshesAheadOfRetirement() throws Exception {
+        // Every cached link is within the refresh window
+        ReflectionTestUtils.setField(s3Service, "urlRefreshAhead", 600_000L);
+        when(amazonS3.generatePresignedUrl(any(GeneratePresignedUrlRequest.class)))
+                .thenReturn(new URL("https://s3.test/first"), new URL("https://s3.test/second"));
+
+        s3Service.getReceiptUrl("receipt/1");
+
+        assertEquals("https://s3.test/first", s3Service.getReceiptUrl("receipt/1"));
+        verify(amazonS3, timeout(1000).times(2)).generatePresignedUrl(any(GeneratePresignedUrlRequest.class));
+    }
+
+    @Test
+    void getReceiptUrl_ServesGeneratedVariant() throws Exception {
+        when(receiptThumbnailer.producesVariants("receipt/2/r.png")).thenReturn(true);
+        when(amazonS3.doesObjectExist("saraf-brk", "receipt/2/thumbnail/r.jpg")).thenReturn(true);
+        when(amazonS3.generatePresignedUrl(argThat((GeneratePresignedUrlRequest request) ->
+                request != null && request.getKey().equals("receipt/2/thumbnail/r.jpg"))))
+                .thenReturn(new URL("https://s3.test/thumbnail"));
+
+        assertEquals("https://s3.test/thumbnail", s3Service.getReceiptUrl("receipt/2/r.png", ReceiptVariant.THUMBNAIL));
+        assertEquals("https://s3.test/thumbnail", s3Service.getReceiptUrl("receipt/2/r.png", ReceiptVariant.THUMBNAIL));
+
+        verify(amazonS3, times(1)).doesObjectExist(anyString(), anyString());
+    }
+
+    @Test
+    void getReceiptUrl_FallsBackToOriginalUntilVariantExists() throws Exception {
+        when(receiptThumbnailer.producesVariants("receipt/2/r.png")).thenReturn(true);
+        when(amazonS3.generatePresignedUrl(any(GeneratePresignedUrlRequest.class))).thenReturn(new URL("https://s3.test/original"));
+
+        assertEquals("https://s3.test/original", s3Service.getReceiptUrl("receipt/2/r.png", ReceiptVariant.PREVIEW));
+        verify(amazonS3).generatePresignedUrl(argThat((GeneratePresignedUrlRequest request) ->
+                request.getKey().equals("receipt/2/r.png")));
+    }
+
+    @Test
+    void getReceiptUrl_ServesPdfAsUploaded() throws Exception {
+        when(amazonS3.generatePresignedUrl(any(GeneratePresignedUrlRequest.class))).thenReturn(new URL("https://s3.test/scan"));
+
+        assertEquals("https://s3.test/scan", s3Service.getReceiptUrl("receipt/2/scan.pdf", ReceiptVariant.THUMBNAIL));
+        verify(amazonS3, never()).doesObjectExist(anyString(), anyString());
+    }
 }
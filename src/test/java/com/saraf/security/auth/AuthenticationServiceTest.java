@@ -5,6 +5,7 @@ import com.saraf.security.email.EmailService;
 import com.saraf.security.exception.EmailValidationException;
 import com.saraf.security.token.Token;
 import com.saraf.security.token.TokenRepository;
+import com.saraf.security.token.TokenStateService;
 import com.saraf.security.user.*;
 import jakarta.mail.MessagingException;
 import jakarta.servlet.ServletOutputStream;
@@ -32,9 +33,15 @@ public class AuthenticationServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private PrincipalCache principalCache;
+
     @Mock
     private TokenRepository tokenRepository;
 
+    @Mock
+    private TokenStateService tokenStateService;
+
     @Mock
     private VerTokenRepository verTokenRepository;
 
@@ -207,16 +214,11 @@ public class AuthenticationServiceTest {
     @Test
     public void testRevokeAllUserTokens() {
         User user = User.builder().id(1).build();
-        Token validToken = Token.builder().token("validToken").build();
-        List<Token> validTokens = List.of(validToken);
-
-        when(tokenRepository.findAllValidTokenByUser(user.getId())).thenReturn(validTokens);
 
         authenticationService.revokeAllUserTokens(user);
 
-        verify(tokenRepository, times(1)).saveAll(anyList());
-        assertTrue(validToken.isExpired());
-        assertTrue(validToken.isRevoked());
+        verify(tokenStateService).revokeAllForUser(1);
+        verify(tokenRepository, never()).saveAll(anyList());
     }
 
     @Test
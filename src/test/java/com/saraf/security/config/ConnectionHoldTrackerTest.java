@@ -0,0 +1,77 @@
+package com.saraf.security.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ConnectionHoldTrackerTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private MethodInvocation invocation;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ConnectionHoldTracker tracker;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(dataSource.getConnection()).thenReturn(connection);
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", meterRegistry);
+        tracker = new ConnectionHoldTracker(dataSource, beanFactory.getBeanProvider(MeterRegistry.class), Duration.ofSeconds(2));
+    }
+
+    @Test
+    void getConnection_AttributesHoldTimeToRepositoryMethod() throws Throwable {
+        when(invocation.getMethod()).thenReturn(Object.class.getMethod("toString"));
+        when(invocation.proceed()).thenAnswer(call -> {
+            tracker.getConnection().close();
+            return null;
+        });
+
+        new ConnectionHoldTracker.RepositoryCallInterceptor("TransferRepository").invoke(invocation);
+
+        assertEquals(1, meterRegistry.get("db.connection.hold").tag("caller", "TransferRepository.toString").timer().count());
+        verify(connection).close();
+    }
+
+    @Test
+    void getConnection_FallsBackToApplicationCaller() throws Exception {
+        tracker.getConnection().close();
+
+        assertEquals(1, meterRegistry.get("db.connection.hold")
+                .tag("caller", "ConnectionHoldTrackerTest.getConnection_FallsBackToApplicationCaller").timer().count());
+    }
+
+    @Test
+    void getConnection_RecordsOnceWhenClosedTwice() throws Exception {
+        Connection tracked = tracker.getConnection();
+        tracked.setAutoCommit(false);
+        tracked.close();
+        tracked.close();
+
+        assertEquals(1, meterRegistry.get("db.connection.hold")
+                .tag("caller", "ConnectionHoldTrackerTest.getConnection_RecordsOnceWhenClosedTwice").timer().count());
+        verify(connection).setAutoCommit(false);
+        verify(connection, times(2)).close();
+    }
+}
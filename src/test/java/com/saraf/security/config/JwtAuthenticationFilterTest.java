@@ -0,0 +1,95 @@
+package com.saraf.security.config;
+
+import com.saraf.security.token.TokenStateService;
+import com.saraf.security.user.PrincipalCache;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class JwtAuthenticationFilterTest {
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private PrincipalCache principalCache;
+
+    @Mock
+    private TokenStateService tokenStateService;
+
+    @Mock
+    private FilterChain filterChain;
+
+    @InjectMocks
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_PublicRouteSkipsTokenWork() throws Exception {
+        MockHttpServletRequest request = request("GET", "/api/v1/rate");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        jwtAuthenticationFilter.doFilter(request, response, filterChain);
+
+        verify(filterChain).doFilter(request, response);
+        verifyNoInteractions(jwtService, principalCache, tokenStateService);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void doFilter_WhitelistedRouteThatReadsThePrincipalStillAuthenticates() throws Exception {
+        when(jwtService.resolveClaims(anyString())).thenThrow(new RuntimeException("parsed"));
+
+        jwtAuthenticationFilter.doFilter(request("GET", "/api/v1/user/name"), new MockHttpServletResponse(), filterChain);
+        jwtAuthenticationFilter.doFilter(request("POST", "/api/v1/rate"), new MockHttpServletResponse(), filterChain);
+
+        verify(jwtService, times(2)).resolveClaims("token");
+    }
+
+    @Test
+    void isPublic_ClassifiesWhitelist() {
+        PublicRoutes routes = SecurityConfiguration.PUBLIC_ROUTES;
+
+        assertTrue(routes.isPublic(request("POST", "/api/v1/auth/authenticate")));
+        assertTrue(routes.isPublic(request("HEAD", "/api/v1/rate/history")));
+        assertTrue(routes.isPublic(request("GET", "/login")));
+        assertTrue(routes.isPublic(request("GET", "/")));
+        assertFalse(routes.isPublic(request("PUT", "/api/v1/user/update-phone")));
+        assertFalse(routes.isPublic(request("GET", "/api/v1/transfer")));
+    }
+
+    @Test
+    void isPublic_UsesThePathWithinTheApplication() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/app/api/v1/auth/refresh-token");
+        request.setContextPath("/app");
+
+        assertTrue(SecurityConfiguration.PUBLIC_ROUTES.isPublic(request));
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        request.addHeader("Authorization", "Bearer token");
+        return request;
+    }
+}
@@ -0,0 +1,129 @@
+package com.saraf.security.config;
+
+import com.saraf.security.exception.InvalidTokenException;
+import com.saraf.security.token.TokenStateService;
+import com.saraf.security.user.Role;
+import com.saraf.security.user.User;
+import com.saraf.security.user.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TokenStateService tokenStateService;
+
+    @InjectMocks
+    private JwtService jwtService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 60_000L);
+        ReflectionTestUtils.setField(jwtService, "refreshExpiration", 120_000L);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheSize", 2);
+        jwtService.init();
+
+        user = User.builder()
+                .id(1)
+                .email("john.doe@example.com")
+                .role(Role.USER)
+                .build();
+    }
+
+    @Test
+    void resolveClaims_ReturnsSubjectAndExpiration() {
+        String token = jwtService.generateToken(user);
+
+        Claims claims = jwtService.resolveClaims(token);
+
+        assertEquals("john.doe@example.com", claims.getSubject());
+        assertNotNull(claims.getExpiration());
+        assertTrue(jwtService.isTokenValid(claims, user));
+    }
+
+    @Test
+    void resolveClaims_ReusesVerifiedClaims() {
+        String token = jwtService.generateToken(user);
+
+        Claims first = jwtService.resolveClaims(token);
+        Claims second = jwtService.resolveClaims(token);
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void resolveClaims_RejectsTamperedToken() {
+        String token = jwtService.generateToken(user);
+        jwtService.resolveClaims(token);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThrows(InvalidTokenException.class, () -> jwtService.resolveClaims(tampered));
+    }
+
+    @Test
+    void resolveClaims_RejectsExpiredToken() {
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", -1_000L);
+        String token = jwtService.generateToken(user);
+
+        assertThrows(InvalidTokenException.class, () -> jwtService.resolveClaims(token));
+    }
+
+    @Test
+    void isTokenValid_RejectsOtherUser() {
+        String token = jwtService.generateToken(user);
+        User other = User.builder().email("jane.doe@example.com").role(Role.USER).build();
+
+        assertFalse(jwtService.isTokenValid(jwtService.resolveClaims(token), other));
+    }
+
+    @Test
+    void isRefreshToken_DistinguishesRefreshFromAccessTokens() {
+        Claims access = jwtService.resolveClaims(jwtService.generateToken(user));
+        Claims refresh = jwtService.resolveClaims(jwtService.generateRefreshToken(user));
+
+        assertFalse(jwtService.isRefreshToken(access));
+        assertTrue(jwtService.isRefreshToken(refresh));
+    }
+
+    @Test
+    void isRefreshToken_RecognisesLegacyRefreshTokenWithoutTypeClaim() {
+        long now = System.currentTimeMillis();
+        String legacyRefresh = Jwts.builder()
+                .setSubject(user.getUsername())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + 120_000L))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)), SignatureAlgorithm.HS256)
+                .compact();
+        String legacyAccess = Jwts.builder()
+                .setSubject(user.getUsername())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + 60_000L))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertTrue(jwtService.isRefreshToken(jwtService.resolveClaims(legacyRefresh)));
+        assertFalse(jwtService.isRefreshToken(jwtService.resolveClaims(legacyAccess)));
+    }
+}
@@ -2,6 +2,7 @@ package com.saraf.security.config;
 
 import com.saraf.security.token.Token;
 import com.saraf.security.token.TokenRepository;
+import com.saraf.security.token.TokenStateService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,6 +24,9 @@ class LogoutServiceTest {
     @Mock
     private TokenRepository tokenRepository;
 
+    @Mock
+    private TokenStateService tokenStateService;
+
     @InjectMocks
     private LogoutService logoutService;
 
@@ -50,13 +54,15 @@ class LogoutServiceTest {
         storedToken.setExpired(false);
         storedToken.setRevoked(false);
 
-        when(tokenRepository.findByToken(jwt)).thenReturn(Optional.of(storedToken));
+        when(tokenStateService.findToken(jwt)).thenReturn(Optional.of(storedToken));
 
         logoutService.logout(request, response, authentication);
 
         assertTrue(storedToken.isExpired());
         assertTrue(storedToken.isRevoked());
+        assertNotNull(storedToken.getRevokedAt());
         verify(tokenRepository, times(1)).save(storedToken);
+        verify(tokenStateService).revoke(jwt);
 
         assertNull(SecurityContextHolder.getContext().getAuthentication());
     }
@@ -67,7 +73,7 @@ class LogoutServiceTest {
 
         logoutService.logout(request, response, authentication);
 
-        verify(tokenRepository, never()).findByToken(anyString());
+        verify(tokenStateService, never()).findToken(anyString());
         verify(tokenRepository, never()).save(any(Token.class));
         assertNull(SecurityContextHolder.getContext().getAuthentication());
     }
@@ -78,7 +84,7 @@ class LogoutServiceTest {
 
         logoutService.logout(request, response, authentication);
 
-        verify(tokenRepository, never()).findByToken(anyString());
+        verify(tokenStateService, never()).findToken(anyString());
         verify(tokenRepository, never()).save(any(Token.class));
         assertNull(SecurityContextHolder.getContext().getAuthentication());
     }
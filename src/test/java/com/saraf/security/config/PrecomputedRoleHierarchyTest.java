@@ -0,0 +1,60 @@
+package com.saraf.security.config;
+
+import com.saraf.security.user.Role;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrecomputedRoleHierarchyTest {
+
+    private final PrecomputedRoleHierarchy roleHierarchy = new PrecomputedRoleHierarchy(Map.of(
+            Role.ADMIN, Set.of(Role.MANAGER),
+            Role.MANAGER, Set.of(Role.USER)
+    ));
+
+    @Test
+    void getReachableGrantedAuthorities_AddsTransitivelyImpliedRoles() {
+        Collection<? extends GrantedAuthority> reachable = roleHierarchy.getReachableGrantedAuthorities(Role.ADMIN.getAuthorities());
+
+        assertThat(AuthorityUtils.authorityListToSet(reachable))
+                .contains("ROLE_ADMIN", "ROLE_MANAGER", "ROLE_USER", "admin:read", "user:read");
+    }
+
+    @Test
+    void getReachableGrantedAuthorities_ReturnsSharedListForAuthenticatedPrincipal() {
+        // Authentication tokens copy the authority list, so the lookup must not depend on identity.
+        var authentication = new UsernamePasswordAuthenticationToken("user", null, Role.MANAGER.getAuthorities());
+
+        Collection<? extends GrantedAuthority> first = roleHierarchy.getReachableGrantedAuthorities(authentication.getAuthorities());
+        Collection<? extends GrantedAuthority> second = roleHierarchy.getReachableGrantedAuthorities(authentication.getAuthorities());
+
+        assertThat(first).isSameAs(second);
+        assertThat(AuthorityUtils.authorityListToSet(first)).contains("ROLE_MANAGER", "ROLE_USER").doesNotContain("ROLE_ADMIN");
+    }
+
+    @Test
+    void getReachableGrantedAuthorities_HandlesArbitraryAuthorities() {
+        List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("OIDC_USER"), new SimpleGrantedAuthority("ROLE_MANAGER"));
+
+        Collection<? extends GrantedAuthority> reachable = roleHierarchy.getReachableGrantedAuthorities(authorities);
+
+        assertThat(AuthorityUtils.authorityListToSet(reachable)).containsExactlyInAnyOrder("OIDC_USER", "ROLE_MANAGER", "ROLE_USER");
+    }
+
+    @Test
+    void getReachableGrantedAuthorities_LeavesUserAlone() {
+        Collection<? extends GrantedAuthority> reachable = roleHierarchy.getReachableGrantedAuthorities(Role.USER.getAuthorities());
+
+        assertThat(AuthorityUtils.authorityListToSet(reachable)).containsExactlyInAnyOrder(
+                "ROLE_USER", "user:read", "user:update", "user:delete", "user:create");
+    }
+}
@@ -1,193 +1,123 @@
 package com.saraf.security.email;
 
+import com.saraf.service.transfer.Status;
 import jakarta.mail.MessagingException;
-import jakarta.mail.internet.InternetAddress;
-import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.AddressException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.thymeleaf.context.Context;
 import org.thymeleaf.spring6.SpringTemplateEngine;
 
-import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class EmailServiceTest {
 
     @Mock
-    private JavaMailSender mailSender;
+    private SpringTemplateEngine templateEngine;
 
     @Mock
-    private SpringTemplateEngine templateEngine;
+    private MailDispatcher mailDispatcher;
 
     @InjectMocks
     private EmailService emailService;
 
-    @Mock
-    private MimeMessage mimeMessage;
-
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
     }
 
     @Test
-    void sendEmail_Success_WithSpecificTemplate() throws MessagingException, IOException {
-        // Setup test data
-        String to = "test@example.com";
-        String from = "amine@sarafbrk.com";
-        String username = "TestUser";
-        String confirmationUrl = "http://example.com/confirm";
-        String activationCode = "123456";
-        String subject = "Test Subject";
-        EmailTemplateName emailTemplateName = EmailTemplateName.ACTIVATE_ACCOUNT;
-
-        // Mock MimeMessage creation and content
-        when(mailSender.createMimeMessage()).thenReturn(mimeMessage);
-
-        // Mock the template engine
-        when(templateEngine.process(anyString(), any(Context.class))).thenReturn("Processed Template");
-
-        // Mock MimeMessage methods
-        when(mimeMessage.getFrom()).thenReturn(new InternetAddress[]{new InternetAddress(from)});
-        when(mimeMessage.getRecipients(MimeMessage.RecipientType.TO)).thenReturn(new InternetAddress[]{new InternetAddress(to)});
-        when(mimeMessage.getSubject()).thenReturn(subject);
-        when(mimeMessage.getContent()).thenReturn("Processed Template");
-
-        // Call the sendEmail method
-        emailService.sendEmail(to, username, emailTemplateName, confirmationUrl, activationCode, subject);
-
-        // Capture the MimeMessage sent by the mail sender
-        ArgumentCaptor<MimeMessage> messageCaptor = ArgumentCaptor.forClass(MimeMessage.class);
-        verify(mailSender, times(1)).send(messageCaptor.capture());
-
-        // Access the captured MimeMessage to perform assertions
-        MimeMessage sentMessage = messageCaptor.getValue();
-
-        assertEquals(from, sentMessage.getFrom()[0].toString());
-        assertEquals(to, sentMessage.getRecipients(MimeMessage.RecipientType.TO)[0].toString());
-        assertEquals(subject, sentMessage.getSubject());
-        assertEquals("Processed Template", sentMessage.getContent().toString().trim());
-    }
+    void sendEmail_Success_WithSpecificTemplate() throws MessagingException {
+        ArgumentCaptor<Context> context = ArgumentCaptor.forClass(Context.class);
+        when(templateEngine.process(eq("activate_account"), context.capture())).thenReturn("Processed Template");
 
-    @Test
-    void sendEmail_Success_WithDefaultTemplate() throws MessagingException, IOException {
-        // Setup test data
-        String to = "test@example.com";
-        String from = "amine@sarafbrk.com";
-        String username = "TestUser";
-        String confirmationUrl = "http://example.com/confirm";
-        String activationCode = "123456";
-        String subject = "Test Subject";
-
-        // Mock MimeMessage creation and content
-        when(mailSender.createMimeMessage()).thenReturn(mimeMessage);
-
-        // Mock the template engine
-        when(templateEngine.process(anyString(), any(Context.class))).thenReturn("Processed Default Template");
-
-        // Mock MimeMessage methods
-        when(mimeMessage.getFrom()).thenReturn(new InternetAddress[]{new InternetAddress(from)});
-        when(mimeMessage.getRecipients(MimeMessage.RecipientType.TO)).thenReturn(new InternetAddress[]{new InternetAddress(to)});
-        when(mimeMessage.getSubject()).thenReturn(subject);
-        when(mimeMessage.getContent()).thenReturn("Processed Default Template");
-
-        // Call the sendEmail method with null EmailTemplateName (which uses the default template)
-        emailService.sendEmail(to, username, null, confirmationUrl, activationCode, subject);
-
-        // Capture the MimeMessage sent by the mail sender
-        ArgumentCaptor<MimeMessage> messageCaptor = ArgumentCaptor.forClass(MimeMessage.class);
-        verify(mailSender, times(1)).send(messageCaptor.capture());
-
-        // Access the captured MimeMessage to perform assertions
-        MimeMessage sentMessage = messageCaptor.getValue();
-
-        assertEquals(from, sentMessage.getFrom()[0].toString());
-        assertEquals(to, sentMessage.getRecipients(MimeMessage.RecipientType.TO)[0].toString());
-        assertEquals(subject, sentMessage.getSubject());
-        assertEquals("Processed Default Template", sentMessage.getContent().toString().trim());
+        emailService.sendEmail("test@example.com", "TestUser", EmailTemplateName.ACTIVATE_ACCOUNT,
+                "http://example.com/confirm", "123456", "Test Subject");
+
+        verify(mailDispatcher).submit(new OutgoingMail("test@example.com", "Test Subject", "Processed Template", true));
+        assertEquals("TestUser", context.getValue().getVariable("username"));
+        assertEquals("http://example.com/confirm", context.getValue().getVariable("confirmationUrl"));
+        assertEquals("123456", context.getValue().getVariable("activation_code"));
     }
 
     @Test
-    void sendContactUsEmail_Success() throws MessagingException, IOException {
-        // Setup test data
-        String name = "John Doe";
-        String email = "john.doe@example.com";
-        String message = "This is a test message.";
-
-        // Mock MimeMessage creation
-        when(mailSender.createMimeMessage()).thenReturn(mimeMessage);
-
-        // Call the sendContactUsEmail method
-        emailService.sendContactUsEmail(name, email, message);
+    void sendEmail_Success_WithDefaultTemplate() throws MessagingException {
+        when(templateEngine.process(eq("confirm-email"), any(Context.class))).thenReturn("Processed Default Template");
 
-        when(mimeMessage.getSubject()).thenReturn("Contact Us Message");
-        when(mimeMessage.getContent()).thenReturn(
-                "You have received a new message from: \n" +
-                    "Name: John Doe\n" +
-                    "Email: john.doe@example.com\n" +
-                    "Message: This is a test message."
-        );
+        emailService.sendEmail("test@example.com", "TestUser", null, "http://example.com/confirm", "123456", "Test Subject");
 
+        verify(mailDispatcher).submit(new OutgoingMail("test@example.com", "Test Subject", "Processed Default Template", true));
+    }
 
-        // Capture the MimeMessage sent by the mail sender
-        ArgumentCaptor<MimeMessage> messageCaptor = ArgumentCaptor.forClass(MimeMessage.class);
-        verify(mailSender, times(1)).send(messageCaptor.capture());
+    @Test
+    void sendEmail_RejectsInvalidAddressBeforeQueueing() {
+        assertThrows(AddressException.class, () -> emailService.sendEmail("not an address", "TestUser",
+                EmailTemplateName.ACTIVATE_ACCOUNT, "http://example.com/confirm", "123456", "Test Subject"));
 
-        // Access the captured MimeMessage to perform assertions
-        MimeMessage sentMessage = messageCaptor.getValue();
+        verifyNoInteractions(mailDispatcher);
+    }
 
-        MimeMessageHelper helper = new MimeMessageHelper(sentMessage, true);
+    @Test
+    void sendContactUsEmail_Success() throws MessagingException {
+        emailService.sendContactUsEmail("John Doe", "john.doe@example.com", "This is a test message.");
 
-        assertEquals("Contact Us Message", sentMessage.getSubject());
-        assertEquals(
-                "You have received a new message from: \n" +
+        verify(mailDispatcher).submit(new OutgoingMail("contact@sarafbrk.com", "Contact Us Message",
+                "You have received a new message from: \n\n" +
                         "Name: John Doe\n" +
                         "Email: john.doe@example.com\n" +
                         "Message: This is a test message.",
-                sentMessage.getContent().toString().trim()
-        );
+                false));
     }
 
     @Test
-    void sendContactConfirmEmail_Success() throws MessagingException, IOException {
-        // Setup test data
-        String name = "John Doe";
-        String email = "john.doe@example.com";
-        String message = "Thank you for your message.";
+    void sendContactConfirmEmail_Success() throws MessagingException {
+        when(templateEngine.process(eq("contact_confirm"), any(Context.class))).thenReturn("Processed Contact Confirm Template");
+
+        emailService.sendContactConfirmEmail("John Doe", "john.doe@example.com", "Thank you for your message.");
 
-        // Mock MimeMessage creation and content
-        when(mailSender.createMimeMessage()).thenReturn(mimeMessage);
+        verify(mailDispatcher).submit(new OutgoingMail("john.doe@example.com", "Thank you for contacting us!",
+                "Processed Contact Confirm Template", true));
+    }
 
-        // Mock the template engine for the CONTACT_CONFIRM template
-        when(templateEngine.process(anyString(), any(Context.class))).thenReturn("Processed Contact Confirm Template");
-        when(mimeMessage.getRecipients(MimeMessage.RecipientType.TO)).thenReturn(new InternetAddress[]{new InternetAddress(email)});
-        when(mimeMessage.getSubject()).thenReturn("Thank you for contacting us!");
-        when(mimeMessage.getContent()).thenReturn("Processed Contact Confirm Template");
+    @Test
+    void statusUpdateEmail_RendersWithoutSending() throws MessagingException {
+        ArgumentCaptor<Context> context = ArgumentCaptor.forClass(Context.class);
+        when(templateEngine.process(eq("status_change"), context.capture())).thenReturn("Processed Status Template");
 
-        // Call the sendContactConfirmEmail method
-        emailService.sendContactConfirmEmail(name, email, message);
+        OutgoingMail mail = emailService.statusUpdateEmail("John", "john@example.com", Status.RECEIVED);
 
-        // Capture the MimeMessage sent by the mail sender
-        ArgumentCaptor<MimeMessage> messageCaptor = ArgumentCaptor.forClass(MimeMessage.class);
-        verify(mailSender, times(1)).send(messageCaptor.capture());
+        assertEquals(new OutgoingMail("john@example.com", "Transfer Status Update", "Processed Status Template", true), mail);
+        assertEquals("RECEIVED", context.getValue().getVariable("status"));
+        verifyNoInteractions(mailDispatcher);
+    }
 
-        // Access the captured MimeMessage to perform assertions
-        MimeMessage sentMessage = messageCaptor.getValue();
+    @Test
+    void deliverAll_SendsThroughDispatcher() {
+        List<OutgoingMail> mails = List.of(new OutgoingMail("john@example.com", "Transfer Status Update", "body", true));
+        when(mailDispatcher.deliverAll(mails)).thenReturn(Collections.singletonList(null));
+
+        assertEquals(Collections.singletonList(null), emailService.deliverAll(mails));
+    }
+
+    @Test
+    void precompileTemplates_ProcessesEveryTemplateOnce() {
+        when(templateEngine.process(anyString(), any(Context.class))).thenReturn("");
 
-        MimeMessageHelper helper = new MimeMessageHelper(sentMessage, true);
+        emailService.precompileTemplates();
 
-        assertEquals(email, sentMessage.getRecipients(MimeMessage.RecipientType.TO)[0].toString());
-        assertEquals("Thank you for contacting us!", sentMessage.getSubject());
-        assertEquals("Processed Contact Confirm Template", sentMessage.getContent().toString().trim());
+        for (EmailTemplateName template : EmailTemplateName.values()) {
+            verify(templateEngine).process(eq(template.getName()), any(Context.class));
+        }
     }
 }
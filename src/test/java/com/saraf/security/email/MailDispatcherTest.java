@@ -0,0 +1,123 @@
+package com.saraf.security.email;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.saraf.service.outbox.OutboxEventType;
+import com.saraf.service.outbox.OutboxService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MailDispatcherTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final OutboxService outboxService = mock(OutboxService.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private MailDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.stop();
+    }
+
+    @Test
+    void submit_SendsQueuedMailInOneBatch() throws Exception {
+        JavaMailSenderImpl smtp = new JavaMailSenderImpl();
+        smtp.setHost("localhost");
+        smtp.setPort(ServerSetupTest.SMTP.getPort());
+        JavaMailSenderImpl mailSender = spy(smtp);
+        dispatcher = dispatcher(mailSender, 3);
+
+        dispatcher.submit(mail("a@example.com"));
+        dispatcher.submit(mail("b@example.com"));
+        dispatcher.submit(mail("c@example.com"));
+        dispatcher.start();
+
+        assertTrue(greenMail.waitForIncomingEmail(5000, 3));
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals("Status", received[0].getSubject());
+        assertEquals("SARAF <amine@sarafbrk.com>", received[0].getFrom()[0].toString());
+        // One send call, and so one SMTP connection, for the whole batch
+        verify(mailSender, times(1)).send(any(MimeMessage[].class));
+        awaitSent(3);
+        assertEquals(1, meterRegistry.get("mail.send.latency").timer().count());
+        verifyNoInteractions(outboxService);
+    }
+
+    @Test
+    void sendBatch_DefersOnlyFailedMessagesToOutbox() {
+        JavaMailSender mailSender = mock(JavaMailSender.class);
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> new JavaMailSenderImpl().createMimeMessage());
+        dispatcher = dispatcher(mailSender, 2);
+        doAnswer(invocation -> {
+            MimeMessage rejected = invocation.getArgument(1);
+            throw new MailSendException(Map.of(rejected, new RuntimeException("mailbox unavailable")));
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        dispatcher.sendBatch(List.of(mail("a@example.com"), mail("b@example.com")));
+
+        ArgumentCaptor<Object> deferred = ArgumentCaptor.forClass(Object.class);
+        verify(outboxService).record(eq(OutboxEventType.EMAIL), deferred.capture());
+        assertEquals("b@example.com", ((OutgoingMail) deferred.getValue()).to());
+        assertEquals(1, meterRegistry.get("mail.messages.sent").counter().count());
+        assertEquals(1, meterRegistry.get("mail.messages.failed").counter().count());
+        assertEquals(1, meterRegistry.get("mail.messages.deferred").counter().count());
+    }
+
+    @Test
+    void submit_DefersToOutboxWhenQueueIsFull() {
+        dispatcher = dispatcher(mock(JavaMailSender.class), 1);
+        ReflectionTestUtils.setField(dispatcher, "queueCapacity", 1);
+        dispatcher.init();
+
+        dispatcher.submit(mail("a@example.com"));
+        dispatcher.submit(mail("b@example.com"));
+
+        verify(outboxService).record(OutboxEventType.EMAIL, mail("b@example.com"));
+    }
+
+    private MailDispatcher dispatcher(JavaMailSender mailSender, int batchSize) {
+        MailDispatcher mailDispatcher = new MailDispatcher(mailSender, outboxService,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), meterRegistry);
+        ReflectionTestUtils.setField(mailDispatcher, "from", "amine@sarafbrk.com");
+        ReflectionTestUtils.setField(mailDispatcher, "fromName", "SARAF");
+        ReflectionTestUtils.setField(mailDispatcher, "queueCapacity", 10);
+        ReflectionTestUtils.setField(mailDispatcher, "workers", 1);
+        ReflectionTestUtils.setField(mailDispatcher, "batchSize", batchSize);
+        mailDispatcher.init();
+        return mailDispatcher;
+    }
+
+    // The counter is updated by the worker just after the server has the messages
+    private void awaitSent(double expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("mail.messages.sent").counter().count() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, meterRegistry.get("mail.messages.sent").counter().count());
+    }
+
+    private static OutgoingMail mail(String to) {
+        return new OutgoingMail(to, "Status", "<p>Your transfer was received</p>", true);
+    }
+}
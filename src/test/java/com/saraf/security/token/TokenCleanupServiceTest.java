@@ -0,0 +1,82 @@
+package com.saraf.security.token;
+
+import com.saraf.security.user.VerTokenRepository;
+import com.saraf.security.user.forgot_password.PasswordResetTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TokenCleanupServiceTest {
+
+    @Mock
+    private TokenRepository tokenRepository;
+
+    @Mock
+    private VerTokenRepository verTokenRepository;
+
+    @Mock
+    private PasswordResetTokenRepository passwordResetTokenRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TokenCleanupService tokenCleanupService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        tokenCleanupService = new TokenCleanupService(tokenRepository, verTokenRepository,
+                passwordResetTokenRepository, jdbcTemplate, meterRegistry);
+        ReflectionTestUtils.setField(tokenCleanupService, "refreshExpiration", 604_800_000L);
+        ReflectionTestUtils.setField(tokenCleanupService, "gracePeriod", 86_400_000L);
+        ReflectionTestUtils.setField(tokenCleanupService, "batchSize", 2);
+        tokenCleanupService.init();
+    }
+
+    @Test
+    void purgeDeadTokens_DeletesInBatchesWalkingTheKey() {
+        when(tokenRepository.findDeadTokenIds(eq(0), any(), any(Pageable.class))).thenReturn(List.of(3, 7));
+        when(tokenRepository.findDeadTokenIds(eq(7), any(), any(Pageable.class))).thenReturn(List.of(9));
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq("token"))).thenReturn(8192L);
+
+        tokenCleanupService.purgeDeadTokens();
+
+        verify(tokenRepository).deleteAllByIdInBatch(List.of(3, 7));
+        verify(tokenRepository).deleteAllByIdInBatch(List.of(9));
+        verify(tokenRepository, never()).findDeadTokenIds(eq(9), any(), any(Pageable.class));
+        assertThat(meterRegistry.get("tokens.purged").tag("table", "token").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("tokens.index.size").tag("table", "token").gauge().value()).isEqualTo(8192);
+    }
+
+    @Test
+    void purgeDeadTokens_UsesRefreshLifetimeForAccessTokensAndGraceForOthers() {
+        tokenCleanupService.purgeDeadTokens();
+
+        ArgumentCaptor<LocalDateTime> tokenCutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> resetCutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(tokenRepository).findDeadTokenIds(anyInt(), tokenCutoff.capture(), any(Pageable.class));
+        verify(passwordResetTokenRepository).findDeadTokenIds(anyInt(), resetCutoff.capture(), any(Pageable.class));
+        verify(verTokenRepository, never()).deleteAllByIdInBatch(any());
+        assertThat(tokenCutoff.getValue()).isCloseTo(LocalDateTime.now().minusDays(7), within(5, ChronoUnit.SECONDS));
+        assertThat(resetCutoff.getValue()).isCloseTo(LocalDateTime.now().minusDays(1), within(5, ChronoUnit.SECONDS));
+    }
+}
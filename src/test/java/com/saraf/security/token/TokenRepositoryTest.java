@@ -5,6 +5,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import com.saraf.security.user.User;
 import com.saraf.security.user.UserRepository;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
@@ -102,6 +103,33 @@ class TokenRepositoryTest {
         assertThat(nonExistentToken).isNotPresent();
     }
 
+    @Test
+    void testRevokeAllByUser() {
+        // When
+        int updated = tokenRepository.revokeAllByUser(testUser.getId(), LocalDateTime.now());
+
+        // Then
+        assertThat(updated).isEqualTo(3);
+        assertThat(tokenRepository.findAllValidTokenValuesByUser(testUser.getId())).isEmpty();
+    }
+
+    @Test
+    void testFindTokenValuesRevokedAfter() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        validToken.setCreatedAt(now.minusMinutes(5));
+        tokenRepository.save(validToken);
+        tokenRepository.revokeAllByUser(testUser.getId(), now);
+
+        // When
+        List<String> revoked = tokenRepository.findTokenValuesRevokedAfter(now.minusSeconds(1), now.minusMinutes(20));
+
+        // Then: tokens without a creation time cannot be shown to still verify
+        assertThat(revoked).containsExactly("validToken");
+        assertThat(tokenRepository.findTokenValuesRevokedAfter(now.plusSeconds(1), now.minusMinutes(20))).isEmpty();
+        assertThat(tokenRepository.findTokenValuesRevokedAfter(now.minusSeconds(1), now.minusMinutes(1))).isEmpty();
+    }
+
     @TestConfiguration
     static class TestConfig {
 
@@ -0,0 +1,203 @@
+package com.saraf.security.token;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TokenStateServiceTest {
+
+    @Mock
+    private TokenRepository tokenRepository;
+
+    @InjectMocks
+    private TokenStateService tokenStateService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(tokenStateService, "denyListSize", 100);
+        ReflectionTestUtils.setField(tokenStateService, "syncLookback", 10_000L);
+        ReflectionTestUtils.setField(tokenStateService, "jwtExpiration", 1_200_000L);
+        tokenStateService.init();
+    }
+
+    @Test
+    void isRevoked_UnknownTokenSkipsDatabase() {
+        assertFalse(tokenStateService.isRevoked("header.payload.signature"));
+
+        verify(tokenRepository, never()).findByToken(anyString());
+    }
+
+    @Test
+    void isRevoked_RevokedTokenServedFromDenyList() {
+        tokenStateService.revoke("header.payload.signature");
+
+        assertTrue(tokenStateService.isRevoked("header.payload.signature"));
+        verify(tokenRepository, never()).findByToken(anyString());
+    }
+
+    @Test
+    void rebuild_LoadsRevokedTokensFromDatabase() {
+        String jwt = "header.payload.revoked";
+        when(tokenRepository.findRevokedTokenValues(any())).thenReturn(List.of(jwt));
+        Token stored = Token.builder().token(jwt).revoked(true).expired(true).build();
+        when(tokenRepository.findByToken(jwt)).thenReturn(Optional.of(stored));
+
+        tokenStateService.rebuild();
+
+        assertTrue(tokenStateService.isRevoked(jwt));
+        assertTrue(tokenStateService.isRevoked(jwt));
+        verify(tokenRepository, times(1)).findByToken(jwt);
+    }
+
+    @Test
+    void rebuild_KeepsLocalRevocations() {
+        when(tokenRepository.findRevokedTokenValues(any())).thenReturn(List.of());
+        tokenStateService.revoke("header.payload.local");
+
+        tokenStateService.rebuild();
+
+        assertTrue(tokenStateService.isRevoked("header.payload.local"));
+    }
+
+    @Test
+    void rebuild_LoadsOnlyTokensThatCanStillVerify() {
+        LocalDateTime before = LocalDateTime.now();
+
+        tokenStateService.rebuild();
+
+        ArgumentCaptor<LocalDateTime> createdAfter = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(tokenRepository).findRevokedTokenValues(createdAfter.capture());
+        assertFalse(createdAfter.getValue().isBefore(before.minus(Duration.ofMillis(1_210_000))));
+        assertTrue(createdAfter.getValue().isBefore(before.minus(Duration.ofMillis(1_200_000))));
+    }
+
+    @Test
+    void poll_AddsTokensRevokedOnAnotherInstance() {
+        String jwt = "header.payload.elsewhere";
+        when(tokenRepository.findRevokedTokenValues(any())).thenReturn(List.of());
+        when(tokenRepository.findByToken(jwt)).thenReturn(Optional.of(Token.builder().token(jwt).revoked(true).build()));
+        tokenStateService.rebuild();
+        assertFalse(tokenStateService.isRevoked(jwt));
+
+        when(tokenRepository.findTokenValuesRevokedAfter(any(), any())).thenReturn(List.of(jwt));
+        tokenStateService.syncRevokedTokens();
+
+        assertTrue(tokenStateService.isRevoked(jwt));
+        verify(tokenRepository, times(1)).findRevokedTokenValues(any());
+    }
+
+    @Test
+    void poll_ReadsFromThePreviousSyncMinusTheLookback() {
+        when(tokenRepository.findRevokedTokenValues(any())).thenReturn(List.of());
+        when(tokenRepository.findTokenValuesRevokedAfter(any(), any())).thenReturn(List.of());
+        tokenStateService.rebuild();
+        LocalDateTime syncedUntil = (LocalDateTime) ReflectionTestUtils.getField(tokenStateService, "syncedUntil");
+
+        tokenStateService.poll();
+        tokenStateService.poll();
+
+        ArgumentCaptor<LocalDateTime> revokedAfter = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(tokenRepository, times(2)).findTokenValuesRevokedAfter(revokedAfter.capture(), any());
+        assertEquals(syncedUntil.minusSeconds(10), revokedAfter.getAllValues().get(0));
+        assertFalse(revokedAfter.getAllValues().get(1).isBefore(revokedAfter.getAllValues().get(0)));
+    }
+
+    @Test
+    void syncRevokedTokens_RebuildsOnceTheAccessTokenLifetimeHasPassed() {
+        when(tokenRepository.findRevokedTokenValues(any())).thenReturn(List.of());
+        tokenStateService.rebuild();
+        ReflectionTestUtils.setField(tokenStateService, "rebuiltAt", LocalDateTime.now().minusMinutes(21));
+
+        tokenStateService.syncRevokedTokens();
+
+        verify(tokenRepository, times(2)).findRevokedTokenValues(any());
+        verify(tokenRepository, never()).findTokenValuesRevokedAfter(any(), any());
+    }
+
+    @Test
+    void poll_RebuildsWhenTheFilterWouldOverflow() {
+        when(tokenRepository.findRevokedTokenValues(any())).thenReturn(List.of());
+        tokenStateService.rebuild();
+        when(tokenRepository.findTokenValuesRevokedAfter(any(), any())).thenReturn(
+                IntStream.range(0, 10_001).mapToObj(i -> "header.payload." + i).toList());
+
+        tokenStateService.poll();
+
+        verify(tokenRepository, times(2)).findRevokedTokenValues(any());
+    }
+
+    @Test
+    void revokeAllForUser_BulkUpdatesAndFiltersTokens() {
+        when(tokenRepository.findAllValidTokenValuesByUser(1)).thenReturn(List.of("header.payload.one", "header.payload.two"));
+
+        tokenStateService.revokeAllForUser(1);
+
+        verify(tokenRepository).revokeAllByUser(eq(1), any());
+        verify(tokenRepository, never()).saveAll(anyList());
+        assertTrue(tokenStateService.isRevoked("header.payload.one"));
+        assertTrue(tokenStateService.isRevoked("header.payload.two"));
+    }
+
+    @Test
+    void revokeAllForUser_SkipsUpdateWhenNothingIsLive() {
+        when(tokenRepository.findAllValidTokenValuesByUser(1)).thenReturn(List.of());
+
+        tokenStateService.revokeAllForUser(1);
+
+        verify(tokenRepository, never()).revokeAllByUser(anyInt(), any());
+    }
+
+    @Test
+    void storedValue_DigestsTokensWhenEnabled() {
+        assertEquals("header.payload.signature", tokenStateService.storedValue("header.payload.signature"));
+
+        ReflectionTestUtils.setField(tokenStateService, "storeDigest", true);
+        String stored = tokenStateService.storedValue("header.payload.signature");
+        tokenStateService.revoke("header.payload.signature");
+
+        assertEquals(64, stored.length());
+        assertTrue(tokenStateService.isRevoked("header.payload.signature"));
+    }
+
+    @Test
+    void findToken_FindsRawTokenStoredBeforeDigestSwitch() {
+        String jwt = "header.payload.signature";
+        Token legacy = Token.builder().token(jwt).build();
+        when(tokenRepository.findByToken(jwt)).thenReturn(Optional.of(legacy));
+        ReflectionTestUtils.setField(tokenStateService, "storeDigest", true);
+
+        assertSame(legacy, tokenStateService.findToken(jwt).orElseThrow());
+        verify(tokenRepository).findByToken(tokenStateService.storedValue(jwt));
+    }
+
+    @Test
+    void isRevoked_TokenRevokedBeforeDigestSwitchStaysRevoked() {
+        String jwt = "header.payload.revoked";
+        when(tokenRepository.findRevokedTokenValues(any())).thenReturn(List.of(jwt));
+        when(tokenRepository.findByToken(jwt)).thenReturn(Optional.of(Token.builder().token(jwt).revoked(true).expired(true).build()));
+        ReflectionTestUtils.setField(tokenStateService, "storeDigest", true);
+
+        tokenStateService.rebuild();
+
+        assertTrue(tokenStateService.isRevoked(jwt));
+    }
+}
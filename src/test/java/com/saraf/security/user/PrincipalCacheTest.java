@@ -0,0 +1,82 @@
+package com.saraf.security.user;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class PrincipalCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private PrincipalCache principalCache;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(principalCache, "ttl", 60_000L);
+        testUser = User.builder()
+                .id(1)
+                .email("johndoe@example.com")
+                .password("encoded")
+                .role(Role.USER)
+                .enabled(true)
+                .build();
+        when(userRepository.findByEmail("johndoe@example.com")).thenReturn(Optional.of(testUser));
+    }
+
+    @Test
+    void loadPrincipal_CachesLightweightPrincipal() {
+        AuthenticatedUser first = principalCache.loadPrincipal("johndoe@example.com");
+        AuthenticatedUser second = principalCache.loadPrincipal("johndoe@example.com");
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.getId()).isEqualTo(1);
+        assertThat(first.getUsername()).isEqualTo("johndoe@example.com");
+        assertThat(first.getPassword()).isNull();
+        assertThat(first.getAuthorities()).hasSize(5);
+        verify(userRepository, times(1)).findByEmail("johndoe@example.com");
+    }
+
+    @Test
+    void evict_ReloadsChangedRole() {
+        principalCache.loadPrincipal("johndoe@example.com");
+        testUser.setRole(Role.ADMIN);
+
+        principalCache.evict("johndoe@example.com");
+
+        assertThat(principalCache.loadPrincipal("johndoe@example.com").getRole()).isEqualTo(Role.ADMIN);
+        verify(userRepository, times(2)).findByEmail("johndoe@example.com");
+    }
+
+    @Test
+    void loadPrincipal_ExpiredEntryIsReloaded() {
+        ReflectionTestUtils.setField(principalCache, "ttl", -1L);
+        principalCache.loadPrincipal("johndoe@example.com");
+
+        principalCache.loadPrincipal("johndoe@example.com");
+
+        verify(userRepository, times(2)).findByEmail("johndoe@example.com");
+    }
+
+    @Test
+    void loadPrincipal_UnknownUser() {
+        when(userRepository.findByEmail("unknown@example.com")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> principalCache.loadPrincipal("unknown@example.com"))
+                .isInstanceOf(UsernameNotFoundException.class);
+    }
+}
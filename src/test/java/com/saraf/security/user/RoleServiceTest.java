@@ -18,6 +18,9 @@ class RoleServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private PrincipalCache principalCache;
+
     @InjectMocks
     private RoleService roleService;
 
@@ -45,6 +48,7 @@ class RoleServiceTest {
 
         // Then
         verify(userRepository).save(testUser);
+        verify(principalCache).evict("johndoe@example.com");
         assertThat(testUser.getRole()).isEqualTo(Role.ADMIN);
     }
 
@@ -45,6 +45,15 @@ public class UserTest {
         assertEquals("ROLE_ADMIN", authorities.get(12).getAuthority());
     }
 
+    @Test
+    public void testGetAuthorities_sharedAcrossUsers() {
+        User first = User.builder().role(Role.USER).build();
+        User second = User.builder().role(Role.USER).build();
+
+        assertSame(first.getAuthorities(), second.getAuthorities());
+        assertThrows(UnsupportedOperationException.class, () -> Role.USER.getAuthorities().add(new SimpleGrantedAuthority("x")));
+    }
+
     @Test
     public void testGetFullName() {
         User user = User.builder()
@@ -0,0 +1,184 @@
+package com.saraf.service.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.saraf.security.email.EmailService;
+import com.saraf.security.email.OutgoingMail;
+import com.saraf.service.telegram.TelegramBot;
+import com.saraf.service.transfer.Status;
+import com.saraf.service.transfer.TransferAdminDTO;
+import jakarta.mail.MessagingException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mail.MailSendException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxRepository outboxRepository;
+
+    @Mock
+    private TelegramBot telegramBot;
+
+    @Mock
+    private EmailService emailService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        relay = new OutboxRelay(outboxRepository, objectMapper, telegramBot, emailService,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(relay, "batchSize", 50);
+        ReflectionTestUtils.setField(relay, "maxAttempts", 10);
+        ReflectionTestUtils.setField(relay, "claimTimeout", 300_000L);
+    }
+
+    @Test
+    void relayBatch_DispatchesEventsAndMarksThemProcessed() throws Exception {
+        TransferAdminDTO transfer = TransferAdminDTO.builder()
+                .id(1001)
+                .amount(BigDecimal.valueOf(200))
+                .transferDate(LocalDateTime.now())
+                .recipientFullName("Jane Doe")
+                .build();
+        OutboxEvent created = event(OutboxEventType.TRANSFER_CREATED, objectMapper.writeValueAsString(transfer));
+        OutboxEvent rate = event(OutboxEventType.RATE_UPDATED, objectMapper.writeValueAsString(new RateUpdatePayload(230, 220)));
+        OutboxEvent status = event(OutboxEventType.TRANSFER_STATUS_CHANGED,
+                objectMapper.writeValueAsString(new StatusUpdatePayload(1001, "John", "john@test.com", Status.RECEIVED)));
+        when(outboxRepository.findPendingBatch(anyInt(), any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(created, rate, status));
+        OutgoingMail mail = new OutgoingMail("john@test.com", "Transfer Status Update", "<p>Received</p>", true);
+        when(emailService.statusUpdateEmail("John", "john@test.com", Status.RECEIVED)).thenReturn(mail);
+        when(emailService.deliverAll(List.of(mail))).thenReturn(Collections.singletonList(null));
+
+        int relayed = relay.relayBatch();
+
+        assertThat(relayed).isEqualTo(3);
+        verify(telegramBot).sendTransferToChannel(transfer);
+        verify(telegramBot).sendNewRateToChannel(230, 220);
+        verify(emailService).deliverAll(List.of(mail));
+        assertThat(List.of(created, rate, status)).allMatch(e -> e.getProcessedAt() != null);
+        verify(outboxRepository).saveAll(anyList());
+    }
+
+    @Test
+    void relayBatch_KeepsFailedEventsPending() throws Exception {
+        OutboxEvent status = event(OutboxEventType.TRANSFER_STATUS_CHANGED,
+                objectMapper.writeValueAsString(new StatusUpdatePayload(1001, "John", "john@test.com", Status.RECEIVED)));
+        when(outboxRepository.findPendingBatch(anyInt(), any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(status));
+        when(emailService.statusUpdateEmail(any(), any(), any()))
+                .thenReturn(new OutgoingMail("john@test.com", "Transfer Status Update", "<p>Received</p>", true));
+        when(emailService.deliverAll(anyList())).thenReturn(List.of(new MailSendException("SMTP down")));
+
+        relay.relayBatch();
+
+        assertThat(status.getProcessedAt()).isNull();
+        assertThat(status.getAttempts()).isEqualTo(1);
+        assertThat(status.getLastError()).isEqualTo("SMTP down");
+    }
+
+    @Test
+    void relayBatch_SendsEmailsOfBatchTogetherAndRetriesOnlyFailedOnes() throws Exception {
+        OutboxEvent first = event(OutboxEventType.TRANSFER_STATUS_CHANGED,
+                objectMapper.writeValueAsString(new StatusUpdatePayload(1001, "John", "john@test.com", Status.RECEIVED)));
+        OutboxEvent second = event(OutboxEventType.TRANSFER_STATUS_CHANGED,
+                objectMapper.writeValueAsString(new StatusUpdatePayload(1002, "Jane", "jane@test.com", Status.PROCESSING)));
+        when(outboxRepository.findPendingBatch(anyInt(), any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(first, second));
+        when(emailService.statusUpdateEmail(any(), any(), any()))
+                .thenReturn(new OutgoingMail("john@test.com", "Transfer Status Update", "<p>Received</p>", true),
+                        new OutgoingMail("jane@test.com", "Transfer Status Update", "<p>Processing</p>", true));
+        when(emailService.deliverAll(anyList())).thenReturn(Arrays.asList(null, new MailSendException("mailbox full")));
+
+        relay.relayBatch();
+
+        verify(emailService, times(1)).deliverAll(anyList());
+        assertThat(first.getProcessedAt()).isNotNull();
+        assertThat(second.getProcessedAt()).isNull();
+        assertThat(second.getLastError()).isEqualTo("mailbox full");
+    }
+
+    @Test
+    void relayBatch_KeepsUnrenderableEmailPending() throws Exception {
+        OutboxEvent status = event(OutboxEventType.TRANSFER_STATUS_CHANGED,
+                objectMapper.writeValueAsString(new StatusUpdatePayload(1001, "John", "not an address", Status.RECEIVED)));
+        when(outboxRepository.findPendingBatch(anyInt(), any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(status));
+        when(emailService.statusUpdateEmail(any(), any(), any())).thenThrow(new MessagingException("Illegal address"));
+
+        relay.relayBatch();
+
+        verify(emailService, never()).deliverAll(anyList());
+        assertThat(status.getAttempts()).isEqualTo(1);
+        assertThat(status.getLastError()).isEqualTo("Illegal address");
+    }
+
+    @Test
+    void relayBatch_ResendsDeferredEmail() throws Exception {
+        OutgoingMail mail = new OutgoingMail("john@test.com", "Transfer Status Update", "<p>Received</p>", true);
+        OutboxEvent email = event(OutboxEventType.EMAIL, objectMapper.writeValueAsString(mail));
+        when(outboxRepository.findPendingBatch(anyInt(), any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(email));
+
+        when(emailService.deliverAll(List.of(mail))).thenReturn(Collections.singletonList(null));
+
+        relay.relayBatch();
+
+        verify(emailService).deliverAll(List.of(mail));
+        assertThat(email.getProcessedAt()).isNotNull();
+    }
+
+    @Test
+    void relayBatch_ClaimsBatchAndReleasesClaimWhenDone() throws Exception {
+        OutboxEvent rate = event(OutboxEventType.RATE_UPDATED, objectMapper.writeValueAsString(new RateUpdatePayload(230, 220)));
+        rate.setId(7L);
+        when(outboxRepository.findPendingBatch(anyInt(), any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(rate));
+        doAnswer(invocation -> {
+            assertThat(rate.getClaimedUntil()).isNotNull();
+            return null;
+        }).when(telegramBot).sendNewRateToChannel(230, 220);
+
+        relay.relayBatch();
+
+        verify(outboxRepository).claim(eq(List.of(7L)), any(LocalDateTime.class));
+        assertThat(rate.getClaimedUntil()).isNull();
+        assertThat(rate.getProcessedAt()).isNotNull();
+        verify(outboxRepository).saveAll(List.of(rate));
+    }
+
+    @Test
+    void relayBatch_DoesNothingWithoutPendingEvents() {
+        when(outboxRepository.findPendingBatch(anyInt(), any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of());
+
+        assertThat(relay.relayBatch()).isZero();
+
+        verify(outboxRepository, never()).claim(anyList(), any());
+        verify(outboxRepository, never()).saveAll(anyList());
+    }
+
+    private OutboxEvent event(OutboxEventType type, String payload) {
+        return OutboxEvent.builder()
+                .type(type)
+                .payload(payload)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -14,6 +15,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -27,17 +29,27 @@ class ExchangeRateControllerTest {
 
     @Test
     void getRate_shouldReturnCurrentRate() throws Exception {
-        double rate = 250.0;
-        when(exchangeRateService.getCurrentRate()).thenReturn(rate);
+        when(exchangeRateService.getCurrentSnapshot()).thenReturn(new ExchangeRate(7, 250.0));
 
         mockMvc.perform(get("/api/v1/rate"))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=5, public"))
                 .andExpect(content().string("250.0"));
     }
 
     @Test
-    void getRate_shouldReturnNotFoundWhenServiceThrowsException() throws Exception {
-        when(exchangeRateService.getCurrentRate()).thenThrow(new NullPointerException());
+    void getRate_shouldReturnNotModifiedWhenETagMatches() throws Exception {
+        when(exchangeRateService.getCurrentSnapshot()).thenReturn(new ExchangeRate(7, 250.0));
+
+        mockMvc.perform(get("/api/v1/rate").header(HttpHeaders.IF_NONE_MATCH, "\"7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void getRate_shouldReturnNotFoundWhenNoRateExists() throws Exception {
+        when(exchangeRateService.getCurrentSnapshot()).thenReturn(null);
 
         mockMvc.perform(get("/api/v1/rate"))
                 .andExpect(status().isNotFound());
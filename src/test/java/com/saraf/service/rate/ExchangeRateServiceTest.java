@@ -1,10 +1,14 @@
 package com.saraf.service.rate;
 
+import com.saraf.service.outbox.OutboxEventType;
+import com.saraf.service.outbox.OutboxService;
+import com.saraf.service.outbox.RateUpdatePayload;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -15,6 +19,12 @@ class ExchangeRateServiceTest {
     @Mock
     private ExchangeRateRepository rateRepository;
 
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ExchangeRateService underTest;
 
@@ -42,12 +52,14 @@ class ExchangeRateServiceTest {
     void updateRate_shouldSaveNewRateWhenValid() {
         // Arrange
         double newRate = 200.0;
+        when(rateRepository.save(any(ExchangeRate.class))).thenReturn(ExchangeRate.builder().id(1).currentRate(newRate).build());
 
         // Act
         underTest.updateRate(newRate);
 
         // Assert
         verify(rateRepository).save(any(ExchangeRate.class));
+        assertThat(underTest.getCurrentRate()).isEqualTo(newRate);
     }
 
     @Test
@@ -60,6 +72,7 @@ class ExchangeRateServiceTest {
 
         // Assert
         verify(rateRepository, never()).save(any(ExchangeRate.class));
+        verify(outboxService, never()).record(any(), any());
     }
 
     @Test
@@ -73,4 +86,64 @@ class ExchangeRateServiceTest {
         // Assert
         verify(rateRepository, never()).save(any(ExchangeRate.class));
     }
+
+    @Test
+    void getCurrentRate_shouldServeSnapshotWithoutRequeryingRepository() {
+        // Arrange
+        when(rateRepository.findTopByOrderByIdDesc()).thenReturn(ExchangeRate.builder().id(1).currentRate(220.0).build());
+
+        // Act
+        underTest.getCurrentRate();
+        double actualRate = underTest.getCurrentRate();
+
+        // Assert
+        assertThat(actualRate).isEqualTo(220.0);
+        verify(rateRepository, times(1)).findTopByOrderByIdDesc();
+    }
+
+    @Test
+    void updateRate_shouldReplaceSnapshot() {
+        // Arrange
+        when(rateRepository.findTopByOrderByIdDesc()).thenReturn(ExchangeRate.builder().id(1).currentRate(220.0).build());
+        when(rateRepository.save(any(ExchangeRate.class))).thenReturn(ExchangeRate.builder().id(2).currentRate(230.0).build());
+        underTest.loadSnapshot();
+
+        // Act
+        underTest.updateRate(230.0);
+
+        // Assert
+        assertThat(underTest.getCurrentRate()).isEqualTo(230.0);
+        assertThat(underTest.getCurrentSnapshot().getId()).isEqualTo(2);
+        verify(outboxService).record(OutboxEventType.RATE_UPDATED, new RateUpdatePayload(230, 220));
+        verify(eventPublisher).publishEvent(new RateChangedEvent(2, 230.0));
+    }
+
+    @Test
+    void syncSnapshot_shouldPickUpRateWrittenElsewhere() {
+        // Arrange
+        when(rateRepository.findTopByOrderByIdDesc())
+                .thenReturn(ExchangeRate.builder().id(1).currentRate(220.0).build())
+                .thenReturn(ExchangeRate.builder().id(3).currentRate(240.0).build());
+        underTest.loadSnapshot();
+
+        // Act
+        underTest.syncSnapshot();
+
+        // Assert
+        assertThat(underTest.getCurrentRate()).isEqualTo(240.0);
+        verify(eventPublisher).publishEvent(new RateChangedEvent(3, 240.0));
+    }
+
+    @Test
+    void syncSnapshot_shouldNotPublishWhenRateIsUnchanged() {
+        // Arrange
+        when(rateRepository.findTopByOrderByIdDesc()).thenReturn(ExchangeRate.builder().id(1).currentRate(220.0).build());
+        underTest.loadSnapshot();
+
+        // Act
+        underTest.syncSnapshot();
+
+        // Assert
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
 }
@@ -0,0 +1,126 @@
+package com.saraf.service.rate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class RateStreamServiceTest {
+
+    @Mock
+    private ExchangeRateService exchangeRateService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private RateStreamService underTest;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        underTest = new RateStreamService(exchangeRateService, new ObjectMapper(), meterRegistry);
+        ReflectionTestUtils.setField(underTest, "timeout", 60_000L);
+        ReflectionTestUtils.setField(underTest, "maxSubscribers", 2);
+        ReflectionTestUtils.setField(underTest, "sendThreads", 1);
+        ReflectionTestUtils.setField(underTest, "sendBuffer", 4);
+        underTest.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.stop();
+    }
+
+    @Test
+    void subscribe_shouldRegisterAndSendCurrentRate() {
+        when(exchangeRateService.getCurrentSnapshot()).thenReturn(ExchangeRate.builder().id(4).currentRate(225.0).build());
+
+        Optional<SseEmitter> emitter = underTest.subscribe();
+
+        assertThat(emitter).isPresent();
+        assertThat(underTest.subscriberCount()).isEqualTo(1);
+        assertThat(meterRegistry.get("rate.stream.subscribers").gauge().value()).isEqualTo(1);
+        verify(exchangeRateService).getCurrentSnapshot();
+    }
+
+    @Test
+    void subscribe_shouldRefuseWhenRegistryIsFull() {
+        underTest.subscribe();
+        underTest.subscribe();
+
+        assertThat(underTest.subscribe()).isEmpty();
+        assertThat(underTest.subscriberCount()).isEqualTo(2);
+    }
+
+    @Test
+    void subscribe_shouldHonourLimitUnderConcurrentSubscribes() throws Exception {
+        ReflectionTestUtils.setField(underTest, "maxSubscribers", 50);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Optional<SseEmitter>>> results = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return underTest.subscribe();
+            }));
+        }
+        start.countDown();
+        int accepted = 0;
+        for (Future<Optional<SseEmitter>> result : results) {
+            accepted += result.get().isPresent() ? 1 : 0;
+        }
+        pool.shutdown();
+
+        assertThat(accepted).isEqualTo(50);
+        assertThat(underTest.subscriberCount()).isEqualTo(50);
+    }
+
+    @Test
+    void onRateChanged_shouldDropSubscriberThatCannotKeepUp() throws Exception {
+        underTest.subscribe();
+        // Occupy the only send thread, as a write to a stalled client would
+        CountDownLatch stalled = new CountDownLatch(1);
+        ExecutorService sender = (ExecutorService) ReflectionTestUtils.getField(underTest, "sender");
+        sender.execute(() -> {
+            try {
+                stalled.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        for (int i = 0; i < 10; i++) {
+            underTest.onRateChanged(new RateChangedEvent(i, 230.0));
+        }
+        stalled.countDown();
+
+        assertThat(underTest.subscriberCount()).isZero();
+        assertThat(underTest.subscribe()).isPresent();
+    }
+
+    @Test
+    void onRateChanged_shouldKeepLiveSubscribers() throws Exception {
+        underTest.subscribe();
+
+        underTest.onRateChanged(new RateChangedEvent(5, 230.0));
+        underTest.heartbeat();
+        Thread.sleep(100);
+
+        assertThat(underTest.subscriberCount()).isEqualTo(1);
+    }
+}
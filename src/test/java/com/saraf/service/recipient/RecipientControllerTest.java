@@ -75,7 +75,7 @@ public class RecipientControllerTest {
     @Test
     @WithMockUser(roles = "USER")
     public void testGetRecipientsForCurrentUser() throws Exception {
-        Recipient recipient = Recipient.builder().firstname("John").lastname("Doe").ccp("123").build();
+        RecipientView recipient = new RecipientView(1, "John", "Doe", "123", "1234567890", true);
         Mockito.when(recipientService.getRecipientsForCurrentUser()).thenReturn(List.of(recipient));
 
         mockMvc.perform(get("/api/v1/recipient/current-user"))
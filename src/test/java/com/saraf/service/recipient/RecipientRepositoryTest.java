@@ -74,6 +74,24 @@ class RecipientRepositoryTest {
         assertThat(result.get()).isEqualTo(recipient);
     }
 
+    @Test
+    void findActiveViewsByUserId_SkipsInactiveAndOneTimeRecipients() {
+        User user = userRepository.save(User.builder()
+                .email("test3@test.com")
+                .firstname("Karim")
+                .lastname("Test")
+                .enabled(true)
+                .build());
+
+        recipientRepository.save(Recipient.builder().firstname("John").lastname("Doe").ccp("111").isActive(true).user(user).build());
+        recipientRepository.save(Recipient.builder().firstname("Jane").lastname("Doe").ccp("222").isActive(false).user(user).build());
+        recipientRepository.save(Recipient.builder().firstname("OTR").lastname("OTR").ccp("333").isActive(true).user(user).build());
+
+        var result = recipientRepository.findActiveViewsByUserId(user.getId());
+
+        assertThat(result).extracting(RecipientView::ccp).containsExactly("111");
+    }
+
     @TestConfiguration
     static class TestConfig {
 
@@ -12,8 +12,9 @@ import org.springframework.data.domain.AuditorAware;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
 
-import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -36,6 +37,9 @@ public class RecipientServiceTest {
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(recipientService, "cacheSize", 100);
+        ReflectionTestUtils.setField(recipientService, "cacheTtl", 60_000L);
+        recipientService.init();
 
         // Create a UserDetails object with the user's details
         UserDetails userDetails = User.builder()
@@ -108,29 +112,58 @@ public class RecipientServiceTest {
 
     @Test
     public void testGetRecipientsForCurrentUser() {
-        // Manually setting up the security context
-        UserDetails userDetails = User.builder()
-                .email("test@example.com")
-                .password("password")
-                .role(Role.USER)
-                .build();
-        UsernamePasswordAuthenticationToken auth =
-                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-        SecurityContextHolder.getContext().setAuthentication(auth);
+        when(recipientRepository.findActiveViewsByUserId(1))
+                .thenReturn(List.of(new RecipientView(1, "John", "Doe", "123", "1234567890", true)));
 
-        // Arrange
-        User user = new User();
-        user.setId(1);
-
-        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
-        when(recipientRepository.findByUserId(1)).thenReturn(Collections.singletonList(Recipient.builder().ccp("123").isActive(true).build()));
-
-        // Act
         var recipients = recipientService.getRecipientsForCurrentUser();
 
-        // Assert
         assertEquals(1, recipients.size());
-        assertTrue(recipients.get(0).isActive());
+        assertEquals("123", recipients.get(0).ccp());
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    public void testGetRecipientsForCurrentUser_ServedFromCache() {
+        when(recipientRepository.findActiveViewsByUserId(1))
+                .thenReturn(List.of(new RecipientView(1, "John", "Doe", "123", "1234567890", true)));
+
+        var first = recipientService.getRecipientsForCurrentUser();
+        var second = recipientService.getRecipientsForCurrentUser();
+
+        assertSame(first, second);
+        verify(recipientRepository, times(1)).findActiveViewsByUserId(1);
+    }
+
+    @Test
+    public void testGetRecipientsForCurrentUser_ReloadedAfterExpiry() {
+        ReflectionTestUtils.setField(recipientService, "cacheTtl", -1L);
+        when(recipientRepository.findActiveViewsByUserId(1)).thenReturn(List.of());
+
+        recipientService.getRecipientsForCurrentUser();
+        recipientService.getRecipientsForCurrentUser();
+
+        verify(recipientRepository, times(2)).findActiveViewsByUserId(1);
+    }
+
+    @Test
+    public void testWritesEvictCachedRecipients() {
+        User user = User.builder().id(1).build();
+        Recipient recipient = Recipient.builder().ccp("123").firstname("John").lastname("Doe").isActive(true).user(user).build();
+        when(recipientRepository.findActiveViewsByUserId(1)).thenReturn(List.of());
+        when(recipientRepository.findByCcp("123")).thenReturn(Optional.of(recipient));
+        when(recipientRepository.save(any(Recipient.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        recipientService.getRecipientsForCurrentUser();
+        recipientService.editRecipient("123", new EditRecipientRequest("Jane", "Doe", "1234567890", true));
+        recipientService.getRecipientsForCurrentUser();
+        recipientService.deactivateRecipient("123");
+        recipientService.getRecipientsForCurrentUser();
+        recipientService.addOneTimeRecipient("456", user);
+        recipientService.getRecipientsForCurrentUser();
+        recipientService.addRecipient(new RecipientRequest("John", "Doe", "789", "1234567890", true, user));
+        recipientService.getRecipientsForCurrentUser();
+
+        verify(recipientRepository, times(5)).findActiveViewsByUserId(1);
     }
 
     @Test
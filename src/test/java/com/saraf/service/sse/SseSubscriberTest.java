@@ -0,0 +1,74 @@
+package com.saraf.service.sse;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SseSubscriberTest {
+
+    // Runs queued tasks only when the test says so, standing in for a busy pool
+    private final Deque<Runnable> tasks = new ArrayDeque<>();
+    private final AtomicInteger closes = new AtomicInteger();
+
+    private SseEmitter emitter;
+    private SseSubscriber subscriber;
+
+    @BeforeEach
+    void setUp() {
+        emitter = mock(SseEmitter.class);
+        subscriber = new SseSubscriber(emitter, 2, tasks::add, s -> closes.incrementAndGet());
+    }
+
+    @Test
+    void send_WritesQueuedEventsInOrderOnTheExecutor() throws Exception {
+        SseEmitter.SseEventBuilder first = SseEmitter.event().id("1");
+        SseEmitter.SseEventBuilder second = SseEmitter.event().id("2");
+
+        subscriber.send(() -> first);
+        subscriber.send(() -> second);
+
+        verify(emitter, never()).send(any(SseEmitter.SseEventBuilder.class));
+        assertThat(tasks).hasSize(1);
+        tasks.poll().run();
+
+        ArgumentCaptor<SseEmitter.SseEventBuilder> sent = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+        verify(emitter, times(2)).send(sent.capture());
+        assertThat(sent.getAllValues()).containsExactly(first, second);
+    }
+
+    @Test
+    void send_DropsSubscriberThatFallsTooFarBehind() throws Exception {
+        subscriber.send(SseEmitter::event);
+        subscriber.send(SseEmitter::event);
+        subscriber.send(SseEmitter::event);
+
+        assertThat(subscriber.isClosed()).isTrue();
+        assertThat(closes).hasValue(1);
+        verify(emitter).complete();
+        tasks.poll().run();
+        verify(emitter, never()).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    void send_DropsSubscriberWhoseConnectionFailed() throws Exception {
+        doThrow(new IOException("Broken pipe")).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+
+        subscriber.send(SseEmitter::event);
+        tasks.poll().run();
+        subscriber.send(SseEmitter::event);
+
+        assertThat(subscriber.isClosed()).isTrue();
+        assertThat(closes).hasValue(1);
+        assertThat(tasks).isEmpty();
+    }
+}
@@ -0,0 +1,124 @@
+package com.saraf.service.telegram;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TelegramDispatcherTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BlockingQueue<JsonNode> received = new LinkedBlockingQueue<>();
+    private final ConcurrentLinkedQueue<Integer> statuses = new ConcurrentLinkedQueue<>();
+
+    private HttpServer server;
+    private TelegramDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/bottest-token/sendMessage", exchange -> {
+            received.add(objectMapper.readTree(exchange.getRequestBody()));
+            Integer status = statuses.poll();
+            int code = status != null ? status : 200;
+            byte[] body = (code == 429
+                    ? "{\"ok\":false,\"parameters\":{\"retry_after\":0}}"
+                    : "{\"ok\":" + (code == 200) + "}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(code, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+
+        dispatcher = new TelegramDispatcher(meterRegistry, objectMapper);
+        ReflectionTestUtils.setField(dispatcher, "botToken", "test-token");
+        ReflectionTestUtils.setField(dispatcher, "channelId", "@channel");
+        ReflectionTestUtils.setField(dispatcher, "apiUrl", "http://localhost:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(dispatcher, "queueCapacity", 10);
+        ReflectionTestUtils.setField(dispatcher, "workers", 1);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "retryBackoff", 10L);
+        dispatcher.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.stop();
+        server.stop(0);
+    }
+
+    @Test
+    void enqueue_PostsEscapedJsonPayload() throws Exception {
+        dispatcher.enqueue("Line \"one\"\nLine two");
+        dispatcher.start();
+
+        JsonNode payload = received.poll(5, TimeUnit.SECONDS);
+
+        assertNotNull(payload);
+        assertEquals("@channel", payload.get("chat_id").asText());
+        assertEquals("Line \"one\"\nLine two", payload.get("text").asText());
+    }
+
+    @Test
+    void enqueue_RetriesServerErrors() throws Exception {
+        statuses.addAll(List.of(500, 502));
+        dispatcher.enqueue("retry me");
+        dispatcher.start();
+
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(received.poll(5, TimeUnit.SECONDS));
+        }
+        waitForSent(1);
+        assertEquals(1.0, meterRegistry.counter("telegram.messages.sent").count());
+    }
+
+    @Test
+    void enqueue_CoalescesQueuedMessagesWhenRateLimited() throws Exception {
+        statuses.add(429);
+        dispatcher.enqueue("first");
+        dispatcher.enqueue("second");
+        dispatcher.enqueue("third");
+        dispatcher.start();
+
+        assertEquals("first", received.poll(5, TimeUnit.SECONDS).get("text").asText());
+        assertEquals("first\n\nsecond\n\nthird", received.poll(5, TimeUnit.SECONDS).get("text").asText());
+        waitForSent(1);
+        assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void enqueue_DropsMessagesWhenQueueIsFull() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(dispatcher.enqueue("message " + i));
+        }
+
+        assertFalse(dispatcher.enqueue("overflow"));
+        assertEquals(10.0, meterRegistry.get("telegram.queue.size").gauge().value());
+        assertEquals(1.0, meterRegistry.counter("telegram.messages.dropped").count());
+    }
+
+    private void waitForSent(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.counter("telegram.messages.sent").count() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.saraf.service.transfer;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.saraf.security.admin.s3.ReceiptVariant;
 import com.saraf.security.admin.s3.S3Service;
 import com.saraf.security.exception.TransferNotPendingException;
 import com.saraf.service.telegram.TelegramBot;
@@ -58,12 +59,7 @@ class TransferControllerTest {
         transfer.setId(1);
         transfer.setAmount(request.getAmount());
 
-        TransferAdminDTO telegramTransfer = transferService.getTransferById(transfer.getId());
-        telegramBot.sendTransferToChannel(telegramTransfer);
-
         Mockito.when(transferService.addTransfer(any(TransferRequest.class))).thenReturn(transfer);
-        Mockito.when(transferService.getTransferById(transfer.getId())).thenReturn(telegramTransfer);
-        Mockito.doNothing().when(telegramBot).sendTransferToChannel(telegramTransfer);
 
         mockMvc.perform(post("/api/v1/transfer/add")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -72,8 +68,8 @@ class TransferControllerTest {
                 .andExpect(jsonPath("$.id").value(1))
                 .andExpect(jsonPath("$.amount").value(100.00));
 
-        Mockito.verify(transferService, Mockito.times(2)).getTransferById(transfer.getId());
-        Mockito.verify(telegramBot, Mockito.times(2)).sendTransferToChannel(telegramTransfer);
+        Mockito.verify(transferService, Mockito.never()).getTransferById(transfer.getId());
+        Mockito.verifyNoInteractions(telegramBot);
 
     }
 
@@ -207,10 +203,22 @@ class TransferControllerTest {
     @WithMockUser(roles = "USER")
     void getFileUrl() throws Exception {
         Mockito.when(transferService.getReceiptName(1)).thenReturn("receipt1");
-        Mockito.when(s3Service.generatePreSignedUrl("receipt1", 10)).thenReturn("https://s3.amazonaws.com/bucket/receipt1");
+        Mockito.when(s3Service.getReceiptUrl("receipt1", ReceiptVariant.ORIGINAL)).thenReturn("https://s3.amazonaws.com/bucket/receipt1");
 
         mockMvc.perform(get("/api/v1/transfer/receipt/1"))
                 .andExpect(status().isOk())
                 .andExpect(content().string("https://s3.amazonaws.com/bucket/receipt1"));
     }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void getFileUrl_Thumbnail() throws Exception {
+        Mockito.when(transferService.getReceiptName(1)).thenReturn("receipt/2/receipt1.jpg");
+        Mockito.when(s3Service.getReceiptUrl("receipt/2/receipt1.jpg", ReceiptVariant.THUMBNAIL))
+                .thenReturn("https://s3.amazonaws.com/bucket/receipt/2/thumbnail/receipt1.jpg");
+
+        mockMvc.perform(get("/api/v1/transfer/receipt/1").param("size", "thumbnail"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("https://s3.amazonaws.com/bucket/receipt/2/thumbnail/receipt1.jpg"));
+    }
 }
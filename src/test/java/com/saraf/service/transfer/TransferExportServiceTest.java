@@ -0,0 +1,120 @@
+package com.saraf.service.transfer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransferExportServiceTest {
+
+    @Mock
+    private TransferRepository transferRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransferExportService exportService;
+
+    private TransferAdminDTO transfer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        exportService = new TransferExportService(transferRepository, new ObjectMapper().findAndRegisterModules(),
+                new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(exportService, "chunkSize", 2);
+        transfer = new TransferAdminDTO(1001, BigDecimal.valueOf(120), BigDecimal.valueOf(108), Status.PENDING,
+                LocalDateTime.of(2024, 5, 1, 10, 30), "Doe, Jane", "00999999999", null, PaymentMethod.ZELLE,
+                "2222", "John", "Smith \"JS\"");
+    }
+
+    @Test
+    void export_WritesCsvWithHeaderAndEscapedFields() throws Exception {
+        when(transferRepository.findForAdminExportAfter(any(), any(), any(), any(), any())).thenReturn(List.of(transfer));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.export(ExportFormat.CSV, null, null, null, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(rows).isEqualTo(1);
+        assertThat(lines[0]).startsWith("id,amount,amountReceived,status");
+        assertThat(lines[1]).isEqualTo("1001,120,108,PENDING,2024-05-01T10:30,\"Doe, Jane\",00999999999,,ZELLE,2222,John,\"Smith \"\"JS\"\"\"");
+    }
+
+    @Test
+    void export_WritesOneJsonObjectPerLineWithinFilters() throws Exception {
+        when(transferRepository.findForAdminExportAfter(
+                eq(LocalDateTime.of(2024, 6, 1, 0, 0)),
+                eq(EnumSet.of(Status.PENDING)),
+                eq(LocalDateTime.of(2024, 5, 1, 0, 0)),
+                eq(Integer.MIN_VALUE),
+                any()))
+                .thenReturn(List.of(transfer));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.export(ExportFormat.NDJSON, LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 31),
+                Set.of(Status.PENDING), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(rows).isEqualTo(1);
+        assertThat(lines).hasSize(1);
+        assertThat(lines[0]).contains("\"id\":1001").contains("\"recipientFullName\":\"Doe, Jane\"");
+    }
+
+    @Test
+    void export_ReadsChunksInSeparateReadOnlyTransactions() throws Exception {
+        TransferAdminDTO second = new TransferAdminDTO(1002, BigDecimal.TEN, BigDecimal.ONE, Status.PENDING,
+                LocalDateTime.of(2024, 5, 1, 10, 30), "Doe, Jane", "00999999999", null, PaymentMethod.ZELLE,
+                "2223", "John", "Smith");
+        TransferAdminDTO third = new TransferAdminDTO(1003, BigDecimal.TEN, BigDecimal.ONE, Status.PENDING,
+                LocalDateTime.of(2024, 5, 2, 9, 0), "Doe, Jane", "00999999999", null, PaymentMethod.ZELLE,
+                "2224", "John", "Smith");
+        when(transferRepository.findForAdminExportAfter(any(), any(), eq(LocalDateTime.of(1970, 1, 1, 0, 0)), eq(Integer.MIN_VALUE), any()))
+                .thenReturn(List.of(transfer, second));
+        when(transferRepository.findForAdminExportAfter(any(), any(), eq(LocalDateTime.of(2024, 5, 1, 10, 30)), eq(1002), any()))
+                .thenReturn(List.of(third));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.export(ExportFormat.NDJSON, null, null, null, out);
+
+        assertThat(rows).isEqualTo(3);
+        assertThat(out.toString(StandardCharsets.UTF_8)).contains("\"id\":1003");
+        ArgumentCaptor<TransactionDefinition> transactions = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, times(2)).getTransaction(transactions.capture());
+        assertThat(transactions.getAllValues()).allMatch(TransactionDefinition::isReadOnly);
+    }
+
+    @Test
+    void csvField_NeutralisesFormulasInTextFields() {
+        assertThat(TransferExportService.csvField("=HYPERLINK(\"http://x\")")).isEqualTo("\"'=HYPERLINK(\"\"http://x\"\")\"");
+        assertThat(TransferExportService.csvField("+1")).isEqualTo("'+1");
+        assertThat(TransferExportService.csvField("-2+3")).isEqualTo("'-2+3");
+        assertThat(TransferExportService.csvField("@SUM(A1)")).isEqualTo("'@SUM(A1)");
+        assertThat(TransferExportService.csvField("\tcmd")).isEqualTo("'\tcmd");
+        assertThat(TransferExportService.csvField("\rcmd")).isEqualTo("\"'\rcmd\"");
+        assertThat(TransferExportService.csvField("Jane")).isEqualTo("Jane");
+        assertThat(TransferExportService.csvField(BigDecimal.valueOf(-5))).isEqualTo("-5");
+    }
+}
@@ -0,0 +1,133 @@
+package com.saraf.service.transfer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedConstruction;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class TransferFeedServiceTest {
+
+    private TransferFeedService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new TransferFeedService(new ObjectMapper().findAndRegisterModules(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(underTest, "replaySize", 2);
+        ReflectionTestUtils.setField(underTest, "timeout", 60_000L);
+        ReflectionTestUtils.setField(underTest, "sendThreads", 1);
+        ReflectionTestUtils.setField(underTest, "sendBuffer", 16);
+        underTest.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.stop();
+    }
+
+    @Test
+    void missedSince_ReplaysEventsAfterLastSeenId() {
+        publish(1, TransferEventType.CREATED);
+        publish(1, TransferEventType.STATUS_CHANGED);
+
+        List<TransferFeedService.FeedEvent> missed = underTest.missedSince(idOf(1));
+
+        assertThat(missed).extracting(TransferFeedService.FeedEvent::type).containsExactly(TransferEventType.STATUS_CHANGED);
+        assertThat(missed.get(0).data()).contains("\"id\":1");
+        assertThat(underTest.missedSince(idOf(2))).isEmpty();
+    }
+
+    @Test
+    void missedSince_RequiresResetWhenIdCannotBeReplayed() {
+        publish(1, TransferEventType.CREATED);
+        publish(2, TransferEventType.CREATED);
+        publish(3, TransferEventType.CREATED);
+
+        // Event 1 was evicted from the two-entry buffer, so event 2 is lost for that client
+        assertThat(underTest.missedSince(idOf(0))).isNull();
+        assertThat(underTest.missedSince(idOf(1))).hasSize(2);
+        assertThat(underTest.missedSince(idOf(9))).isNull();
+        assertThat(underTest.missedSince("otherboot-1")).isNull();
+        assertThat(underTest.missedSince("garbage")).isNull();
+    }
+
+    @Test
+    void subscribe_RegistersSubscriber() {
+        underTest.subscribe(null);
+        underTest.subscribe("otherboot-1");
+
+        assertThat(underTest.subscriberCount()).isEqualTo(2);
+    }
+
+    @Test
+    void subscribe_SendsReplayThenLiveEventsInOrder() throws Exception {
+        publish(1, TransferEventType.CREATED);
+        publish(2, TransferEventType.CREATED);
+
+        try (MockedConstruction<SseEmitter> emitters = mockConstruction(SseEmitter.class)) {
+            underTest.subscribe(idOf(1));
+            publish(3, TransferEventType.CREATED);
+
+            assertThat(sentIds(emitters.constructed().get(0), 2)).containsExactly(idOf(2), idOf(3));
+        }
+    }
+
+    @Test
+    void subscribe_LosesNoEventPublishedWhileSubscribing() throws Exception {
+        ReflectionTestUtils.setField(underTest, "replaySize", 1000);
+        publish(1, TransferEventType.CREATED);
+
+        try (MockedConstruction<SseEmitter> emitters = mockConstruction(SseEmitter.class)) {
+            Thread publisher = new Thread(() -> {
+                for (int i = 2; i <= 300; i++) {
+                    publish(i, TransferEventType.STATUS_CHANGED);
+                }
+            });
+            publisher.start();
+            underTest.subscribe(idOf(1));
+            publisher.join();
+
+            List<String> expected = LongStream.rangeClosed(2, 300).mapToObj(this::idOf).toList();
+            assertThat(sentIds(emitters.constructed().get(0), expected.size())).containsExactlyElementsOf(expected);
+        }
+    }
+
+    // Ids of the first events written to the emitter, waiting for the send thread to get that far
+    private List<String> sentIds(SseEmitter emitter, int count) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (sendCount(emitter) < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        ArgumentCaptor<SseEmitter.SseEventBuilder> sent = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+        verify(emitter, atLeast(count)).send(sent.capture());
+        return sent.getAllValues().stream()
+                .map(event -> event.build().iterator().next().getData().toString())
+                .map(text -> text.substring("id:".length(), text.indexOf('\n')))
+                .toList();
+    }
+
+    private long sendCount(SseEmitter emitter) {
+        return mockingDetails(emitter).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("send"))
+                .count();
+    }
+
+    private void publish(int transferId, TransferEventType type) {
+        underTest.onTransferEvent(new TransferLifecycleEvent(type,
+                TransferAdminDTO.builder().id(transferId).status(Status.PENDING).build()));
+    }
+
+    private String idOf(long sequence) {
+        return ReflectionTestUtils.getField(underTest, "bootId") + "-" + sequence;
+    }
+}
@@ -0,0 +1,95 @@
+package com.saraf.service.transfer;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs db/transfer_seq.sql, the deployment step that moves ids to transfer_seq, on a table
+ * that already holds ids above the generator's initial value. Needs a context of its own,
+ * so that Hibernate has not taken a block from the sequence before the script runs.
+ */
+@DataJpaTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+class TransferIdSequenceTest {
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void pooledIdsDoNotCollideWithRowsWrittenBeforeTheSequence() {
+        for (int id : List.of(1001, 1500, 1734)) {
+            entityManager.createNativeQuery("INSERT INTO transfer (id, amount, status) VALUES (?, 10, 'PENDING')")
+                    .setParameter(1, id)
+                    .executeUpdate();
+        }
+        entityManager.createNativeQuery("CREATE ALIAS setval FOR \"" + PostgresFunctions.class.getName() + ".setval\"")
+                .executeUpdate();
+        entityManager.unwrap(Session.class).doWork(connection ->
+                ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/transfer_seq.sql")));
+
+        // More than one block, so the second sequence call is covered too
+        List<Transfer> saved = transferRepository.saveAllAndFlush(IntStream.range(0, 120)
+                .mapToObj(i -> Transfer.builder()
+                        .amount(BigDecimal.TEN)
+                        .status(Status.PENDING)
+                        .transferDate(LocalDateTime.now())
+                        .build())
+                .toList());
+
+        Set<Integer> ids = new HashSet<>();
+        saved.forEach(transfer -> ids.add(transfer.getId()));
+        assertThat(ids).hasSize(120).allMatch(id -> id > 1734);
+    }
+
+    // Called by H2 through CREATE ALIAS, so it has to be reachable from outside the package
+    public static class PostgresFunctions {
+
+        /**
+         * PostgreSQL's setval, which H2 lacks. Only the is_called = false form the script
+         * uses: the next nextval returns {@code value}.
+         */
+        public static long setval(Connection connection, String sequence, long value, boolean isCalled) throws SQLException {
+            if (isCalled) {
+                throw new SQLException("setval with is_called = true is not emulated");
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + value);
+            }
+            return value;
+        }
+    }
+
+    @TestConfiguration
+    static class TestConfig {
+
+        @Bean
+        public AuditorAware<String> auditorAware() {
+            return () -> Optional.of("test-auditor");
+        }
+    }
+}
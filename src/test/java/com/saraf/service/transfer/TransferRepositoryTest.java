@@ -14,6 +14,7 @@ import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
 import java.math.BigDecimal;
@@ -98,6 +99,61 @@ class TransferRepositoryTest {
         assertThat(transfers.getContent()).hasSize(1);
     }
 
+    @Test
+    void findTransfersByUserIdAfter_WalksAllPagesWithoutOverlap() {
+        Integer userId = userRepository.findByEmail("user@test.com").get().getId();
+        TransferCursor first = TransferCursor.FIRST;
+
+        Slice<TransferDTO> page1 = transferRepository.findTransfersByUserIdAfter(userId, first.transferDate(), first.id(), PageRequest.of(0, 1));
+        TransferDTO last = page1.getContent().get(0);
+        Slice<TransferDTO> page2 = transferRepository.findTransfersByUserIdAfter(userId, last.getTransferDate(), last.getId(), PageRequest.of(0, 1));
+
+        assertThat(page1.hasNext()).isTrue();
+        assertThat(page2.getContent()).hasSize(1);
+        assertThat(page2.hasNext()).isFalse();
+        assertThat(page2.getContent().get(0).getId()).isNotEqualTo(last.getId());
+    }
+
+    @Test
+    void findAllPendingForAdminAfter() {
+        TransferCursor first = TransferCursor.FIRST;
+        Slice<TransferAdminDTO> transfers = transferRepository.findAllPendingForAdminAfter(first.transferDate(), first.id(), PageRequest.of(0, 10));
+        assertThat(transfers.getContent()).hasSize(1);
+        assertThat(transfers.hasNext()).isFalse();
+    }
+
+    @Test
+    void findForAdminExportAfter_FiltersByStatus() {
+        List<TransferAdminDTO> transfers = transferRepository.findForAdminExportAfter(LocalDateTime.now().plusDays(1),
+                List.of(Status.CANCELED), LocalDateTime.now().minusDays(1), Integer.MIN_VALUE, PageRequest.of(0, 10));
+
+        assertThat(transfers).extracting(TransferAdminDTO::getReceipt).containsExactly("testReceipt");
+    }
+
+    @Test
+    void findForAdminExportAfter_ContinuesAfterTheCursor() {
+        List<Status> all = List.of(Status.values());
+        LocalDateTime end = LocalDateTime.now().plusDays(1);
+        List<TransferAdminDTO> first = transferRepository.findForAdminExportAfter(end, all,
+                LocalDateTime.now().minusDays(1), Integer.MIN_VALUE, PageRequest.of(0, 1));
+        TransferAdminDTO last = first.get(0);
+
+        List<TransferAdminDTO> rest = transferRepository.findForAdminExportAfter(end, all,
+                last.getTransferDate(), last.getId(), PageRequest.of(0, 10));
+
+        assertThat(rest).hasSize(1);
+        assertThat(rest.get(0).getId()).isNotEqualTo(last.getId());
+    }
+
+    @Test
+    void transferIdsStartAt1001AndStayUnique() {
+        List<Integer> ids = transferRepository.findAll().stream().map(Transfer::getId).sorted().toList();
+
+        // Other tests share the sequence, so only the lower bound and the in-memory block are fixed.
+        assertThat(ids).hasSize(2).allMatch(id -> id >= 1001);
+        assertThat(ids.get(1)).isEqualTo(ids.get(0) + 1);
+    }
+
     @Test
     public void findUserPhoneNumberByTransferId() {
         Transfer transfer = transferRepository.findAll().get(0);  // Assumes the first saved transfer is the one we want
@@ -2,15 +2,20 @@ package com.saraf.service.transfer;
 
 import com.saraf.security.exception.TransferNotFoundException;
 import com.saraf.security.exception.TransferNotPendingException;
+import com.saraf.security.user.AuthenticatedUser;
 import com.saraf.security.user.Role;
 import com.saraf.security.user.User;
 import com.saraf.security.user.UserRepository;
-import com.saraf.service.rate.ExchangeRate;
-import com.saraf.service.rate.ExchangeRateRepository;
+import com.saraf.service.outbox.OutboxEventType;
+import com.saraf.service.outbox.OutboxService;
+import com.saraf.service.outbox.StatusUpdatePayload;
+import com.saraf.service.rate.ExchangeRateService;
 import com.saraf.service.recipient.Recipient;
 import com.saraf.service.recipient.RecipientRepository;
+import com.saraf.service.recipient.RecipientService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -18,9 +23,11 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.test.context.support.WithMockUser;
 
@@ -29,11 +36,15 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 
@@ -49,7 +60,7 @@ class TransferServiceTest {
     private RecipientRepository recipientRepository;
 
     @Mock
-    private ExchangeRateRepository rateRepository;
+    private ExchangeRateService exchangeRateService;
 
     @Mock
     private TransferRepository transferRepository;
@@ -57,6 +68,15 @@ class TransferServiceTest {
     @Mock
     private AuditorAware<Integer> auditorAware;
 
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private RecipientService recipientService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
 
     @BeforeEach
     void setup() {
@@ -83,14 +103,14 @@ class TransferServiceTest {
         // Setup mocks for other repositories
         User user = User.builder().id(1).email("user@test.com").enabled(true).build();
         when(userRepository.findById(1)).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(1)).thenReturn(user);
         when(userRepository.findByEmail("user@test.com")).thenReturn(Optional.of(user));
 
         Recipient recipient = Recipient.builder().firstname("Jane").lastname("Doe").ccp("12345678989").user(user).build();
         when(recipientRepository.findByUserIdAndAndCcp(1, "12345678989")).thenReturn(recipient);
 
-        ExchangeRate rate = new ExchangeRate();
-        rate.setCurrentRate(0.9);
-        when(rateRepository.findTopByOrderByIdDesc()).thenReturn(rate);
+        when(exchangeRateService.getCurrentRate()).thenReturn(0.9);
+        ReflectionTestUtils.setField(transferService, "bulkUpdateMaxSize", 500);
     }
 
     @Test
@@ -107,6 +127,31 @@ class TransferServiceTest {
         assertThat(transfer.getAmountReceived()).isEqualTo(BigDecimal.valueOf(108.0));
         assertThat(transfer.getStatus()).isEqualTo(Status.PENDING);
         verify(transferRepository).save(any(Transfer.class));
+        verify(outboxService).record(eq(OutboxEventType.TRANSFER_CREATED), argThat(payload ->
+                payload instanceof TransferAdminDTO dto && dto.getRecipientFullName().equals("Jane Doe")));
+    }
+
+    @Test
+    void addTransfer_CreatesOneTimeRecipientAndUsesCachedPrincipal() {
+        User owner = User.builder().id(1).email("user@test.com").firstname("John").lastname("Smith").role(Role.USER).build();
+        AuthenticatedUser principal = AuthenticatedUser.from(owner);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        Recipient oneTime = Recipient.builder().firstname("OTR").lastname("OTR").ccp("99999999999").build();
+        when(recipientService.addOneTimeRecipient(eq("99999999999"), any(User.class))).thenReturn(oneTime);
+        when(transferRepository.save(any(Transfer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        TransferRequest request = TransferRequest.builder()
+                .amount(BigDecimal.valueOf(120))
+                .ccp("99999999999")
+                .build();
+
+        Transfer transfer = transferService.addTransfer(request);
+
+        assertThat(transfer.getRecipient()).isSameAs(oneTime);
+        verify(recipientRepository, times(1)).findByUserIdAndAndCcp(1, "99999999999");
+        verify(userRepository, never()).findById(any());
+        verify(outboxService).record(eq(OutboxEventType.TRANSFER_CREATED), argThat(payload ->
+                payload instanceof TransferAdminDTO dto && dto.getFirstName().equals("John") && dto.getLastName().equals("Smith")));
     }
 
     @Test
@@ -186,21 +231,149 @@ class TransferServiceTest {
         assertThat(transfers.getContent().get(0)).isEqualTo(transferDTO);
     }
 
+    @Test
+    void scrollTransfersForUser_ReturnsCursorOfLastRow() {
+        LocalDateTime date = LocalDateTime.of(2024, 5, 1, 10, 30);
+        TransferDTO transferDTO = new TransferDTO(7, BigDecimal.valueOf(120), BigDecimal.valueOf(108), Status.PENDING,
+                date, "Jane Doe", "receipt1", "00999999999", PaymentMethod.VENMO, "1111");
+        Slice<TransferDTO> slice = new SliceImpl<>(List.of(transferDTO), PageRequest.of(0, 1), true);
+
+        when(transferRepository.findTransfersByUserIdAfter(eq(1), eq(TransferCursor.FIRST.transferDate()),
+                eq(Integer.MAX_VALUE), eq(PageRequest.of(0, 1)))).thenReturn(slice);
+
+        CursorPage<TransferDTO> firstPage = transferService.scrollTransfersForUser(null, 1);
+
+        assertThat(firstPage.content()).containsExactly(transferDTO);
+        assertThat(firstPage.hasNext()).isTrue();
+        assertThat(TransferCursor.decode(firstPage.nextCursor())).isEqualTo(new TransferCursor(date, 7));
+    }
+
+    @Test
+    void scrollPendingTransfersForAdmin_SeeksPastCursor() {
+        LocalDateTime date = LocalDateTime.of(2024, 5, 1, 10, 30);
+        String cursor = new TransferCursor(date, 7).encode();
+        when(transferRepository.findAllPendingForAdminAfter(date, 7, PageRequest.of(0, 20)))
+                .thenReturn(new SliceImpl<>(List.of(), PageRequest.of(0, 20), false));
+
+        CursorPage<TransferAdminDTO> page = transferService.scrollPendingTransfersForAdmin(cursor, 20);
+
+        assertThat(page.content()).isEmpty();
+        assertThat(page.hasNext()).isFalse();
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void scrollTransfersForAdmin_RejectsMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> transferService.scrollTransfersForAdmin("not-a-cursor", 20));
+    }
+
     @Test
     void updateStatus() {
         Transfer transfer = new Transfer();
         transfer.setId(1);
         transfer.setStatus(Status.PENDING);
+        transfer.setUser(User.builder().id(1).firstname("John").email("user@test.com").build());
 
-        Mockito.when(transferRepository.findById(1)).thenReturn(Optional.of(transfer));
+        Mockito.when(transferRepository.findByIdForUpdate(1)).thenReturn(Optional.of(transfer));
         transferService.updateStatus(1, Status.RECEIVED);
 
         assertThat(transfer.getStatus()).isEqualTo(Status.RECEIVED);
+        verify(outboxService).record(OutboxEventType.TRANSFER_STATUS_CHANGED,
+                new StatusUpdatePayload(1, "John", "user@test.com", Status.RECEIVED));
+        verify(eventPublisher).publishEvent(argThat((TransferLifecycleEvent event) ->
+                event.type() == TransferEventType.STATUS_CHANGED && event.transfer().getStatus() == Status.RECEIVED));
+    }
+
+    @Test
+    void updateStatuses_AppliesOneGuardedUpdatePerTransition() {
+        when(transferRepository.findStatusViewsByIdIn(any())).thenReturn(List.of(
+                new TransferStatusView(1, Status.PENDING, "John", "john@test.com"),
+                new TransferStatusView(2, Status.PENDING, "Jane", "jane@test.com"),
+                new TransferStatusView(3, Status.PROCESSING, "Jim", "jim@test.com"),
+                new TransferStatusView(5, Status.RECEIVED, "Joe", "joe@test.com"),
+                new TransferStatusView(6, Status.RECEIVED, "Jill", "jill@test.com")));
+        when(transferRepository.updateStatusWhereCurrent(List.of(1, 2), Status.PENDING, Status.PROCESSING)).thenReturn(2);
+        when(transferRepository.updateStatusWhereCurrent(List.of(3), Status.PROCESSING, Status.RECEIVED)).thenReturn(1);
+        when(transferRepository.findTransfersByIdIn(any())).thenReturn(List.of(
+                TransferAdminDTO.builder().id(1).status(Status.PROCESSING).build(),
+                TransferAdminDTO.builder().id(2).status(Status.PROCESSING).build(),
+                TransferAdminDTO.builder().id(3).status(Status.RECEIVED).build()));
+
+        List<StatusUpdateResult> results = transferService.updateStatuses(List.of(
+                statusUpdate(1, Status.PROCESSING, null),
+                statusUpdate(2, Status.PROCESSING, Status.PENDING),
+                statusUpdate(3, Status.RECEIVED, null),
+                statusUpdate(4, Status.RECEIVED, null),
+                statusUpdate(5, Status.CANCELED, Status.PENDING),
+                statusUpdate(6, Status.RECEIVED, null)));
+
+        assertThat(results).containsExactly(
+                new StatusUpdateResult(1, Status.PROCESSING, StatusUpdateResult.Outcome.UPDATED),
+                new StatusUpdateResult(2, Status.PROCESSING, StatusUpdateResult.Outcome.UPDATED),
+                new StatusUpdateResult(3, Status.RECEIVED, StatusUpdateResult.Outcome.UPDATED),
+                new StatusUpdateResult(4, null, StatusUpdateResult.Outcome.NOT_FOUND),
+                new StatusUpdateResult(5, Status.RECEIVED, StatusUpdateResult.Outcome.CONFLICT),
+                new StatusUpdateResult(6, Status.RECEIVED, StatusUpdateResult.Outcome.UNCHANGED));
+        verify(transferRepository, times(2)).updateStatusWhereCurrent(anyList(), any(), any());
+        verify(transferRepository, never()).findById(anyInt());
+        verify(outboxService).record(OutboxEventType.TRANSFER_STATUS_CHANGED,
+                new StatusUpdatePayload(1, "John", "john@test.com", Status.PROCESSING));
+        verify(outboxService).record(OutboxEventType.TRANSFER_STATUS_CHANGED,
+                new StatusUpdatePayload(3, "Jim", "jim@test.com", Status.RECEIVED));
+        verify(outboxService, times(3)).record(eq(OutboxEventType.TRANSFER_STATUS_CHANGED), any());
+        verify(eventPublisher, times(3)).publishEvent(any(TransferLifecycleEvent.class));
+    }
+
+    @Test
+    void updateStatuses_LocksTransfersBeforeReadingStatuses() {
+        when(transferRepository.findStatusViewsByIdIn(any())).thenReturn(List.of(
+                new TransferStatusView(1, Status.PENDING, "John", "john@test.com"),
+                new TransferStatusView(2, Status.PENDING, "Jane", "jane@test.com")));
+        when(transferRepository.updateStatusWhereCurrent(List.of(1, 2), Status.PENDING, Status.PROCESSING)).thenReturn(2);
+
+        transferService.updateStatuses(List.of(
+                statusUpdate(1, Status.PROCESSING, null),
+                statusUpdate(2, Status.PROCESSING, null)));
+
+        InOrder inOrder = inOrder(transferRepository);
+        inOrder.verify(transferRepository).lockByIdIn(Set.of(1, 2));
+        inOrder.verify(transferRepository).findStatusViewsByIdIn(Set.of(1, 2));
+        inOrder.verify(transferRepository).updateStatusWhereCurrent(List.of(1, 2), Status.PENDING, Status.PROCESSING);
+    }
+
+    @Test
+    void updateStatuses_FailsInsteadOfGuessingWhenUpdateMissesLockedRows() {
+        when(transferRepository.findStatusViewsByIdIn(any())).thenReturn(List.of(
+                new TransferStatusView(1, Status.PENDING, "John", "john@test.com"),
+                new TransferStatusView(2, Status.PENDING, "Jane", "jane@test.com")));
+        when(transferRepository.updateStatusWhereCurrent(List.of(1, 2), Status.PENDING, Status.PROCESSING)).thenReturn(1);
+
+        assertThrows(IllegalStateException.class, () -> transferService.updateStatuses(List.of(
+                statusUpdate(1, Status.PROCESSING, null),
+                statusUpdate(2, Status.PROCESSING, null))));
+        verify(transferRepository, times(1)).findStatusViewsByIdIn(any());
+        verifyNoInteractions(outboxService);
+    }
+
+    @Test
+    void updateStatuses_RejectsDuplicateIds() {
+        assertThrows(IllegalArgumentException.class, () -> transferService.updateStatuses(List.of(
+                statusUpdate(1, Status.PROCESSING, null),
+                statusUpdate(1, Status.RECEIVED, null))));
+        verifyNoInteractions(transferRepository);
+    }
+
+    private static UpdateTransferStatusDTO statusUpdate(Integer id, Status status, Status expectedStatus) {
+        UpdateTransferStatusDTO update = new UpdateTransferStatusDTO();
+        update.setId(id);
+        update.setStatus(status);
+        update.setExpectedStatus(expectedStatus);
+        return update;
     }
 
     @Test
     void updateStatus_TransferNotFound() {
-        Mockito.when(transferRepository.findById(1)).thenReturn(Optional.empty());
+        Mockito.when(transferRepository.findByIdForUpdate(1)).thenReturn(Optional.empty());
         assertThrows(TransferNotFoundException.class, () -> transferService.updateStatus(1, Status.RECEIVED));
     }
 
@@ -208,45 +381,54 @@ class TransferServiceTest {
     void cancelTransfer() {
         Transfer transfer = new Transfer();
         transfer.setId(1);
-        transfer.setStatus(Status.PENDING); // Ensure the status is PENDING for cancellation
+        transfer.setStatus(Status.CANCELED); // as re-read after the guarded update
 
+        Mockito.when(transferRepository.updateStatusWhereCurrent(List.of(1), Status.PENDING, Status.CANCELED)).thenReturn(1);
         Mockito.when(transferRepository.findById(1)).thenReturn(Optional.of(transfer));
 
-        Mockito.when(transferRepository.save(transfer)).thenReturn(transfer);
-
         Transfer canceledTransfer = transferService.cancelTransfer(1);
 
         assertThat(canceledTransfer.getStatus()).isEqualTo(Status.CANCELED);
-        verify(transferRepository).save(transfer);
+        verify(transferRepository, never()).save(any(Transfer.class));
+        verify(eventPublisher).publishEvent(argThat((TransferLifecycleEvent event) ->
+                event.type() == TransferEventType.CANCELED && event.transfer().getId() == 1));
     }
 
     @Test
     void cancelTransfer_NotPending() {
         Transfer transfer = new Transfer();
         transfer.setId(1);
-        transfer.setStatus(Status.RECEIVED); // not PENDING
+        transfer.setStatus(Status.PROCESSING); // moved on by an admin before the cancel
 
+        Mockito.when(transferRepository.updateStatusWhereCurrent(List.of(1), Status.PENDING, Status.CANCELED)).thenReturn(0);
         Mockito.when(transferRepository.findById(1)).thenReturn(Optional.of(transfer));
 
         assertThrows(TransferNotPendingException.class, () -> transferService.cancelTransfer(1));
+        assertThat(transfer.getStatus()).isEqualTo(Status.PROCESSING);
         verify(transferRepository, never()).save(any(Transfer.class));
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
-    void getReceiptName() {
-        Transfer transfer = new Transfer();
-        transfer.setId(1);
-        transfer.setReceipt("receipt1");
+    void cancelTransfer_TransferNotFound() {
+        Mockito.when(transferRepository.findById(1)).thenReturn(Optional.empty());
 
-        Mockito.when(transferRepository.findById(1)).thenReturn(Optional.of(transfer));
+        assertThrows(TransferNotFoundException.class, () -> transferService.cancelTransfer(1));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void getReceiptName() {
+        Mockito.when(transferRepository.findReceiptByTransferId(1)).thenReturn(Optional.of("receipt1"));
         String receiptName = transferService.getReceiptName(1);
 
         assertThat(receiptName).isEqualTo("receipt1");
+        verify(transferRepository, never()).findById(anyInt());
     }
 
     @Test
     void getReceiptName_TransferNotFound() {
-        Mockito.when(transferRepository.findById(1)).thenReturn(Optional.empty());
+        Mockito.when(transferRepository.findReceiptByTransferId(1)).thenReturn(Optional.empty());
         assertThrows(TransferNotFoundException.class, () -> transferService.getReceiptName(1));
     }
 